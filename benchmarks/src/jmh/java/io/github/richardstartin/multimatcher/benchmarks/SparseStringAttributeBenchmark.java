@@ -0,0 +1,57 @@
+package io.github.richardstartin.multimatcher.benchmarks;
+
+import io.github.richardstartin.multimatcher.core.Classifier;
+import io.github.richardstartin.multimatcher.core.MatchingConstraint;
+import io.github.richardstartin.multimatcher.core.Schema;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+@State(Scope.Benchmark)
+public class SparseStringAttributeBenchmark {
+
+    private static final String PREFIX = "https://example.com/catalogue/products/items/";
+
+    @Param({"1024", "16384", "65536"})
+    int count;
+
+    @Param({"0.01", "0.1", "0.5"})
+    double hitRate;
+
+    @Param({"true", "false"})
+    boolean sparse;
+
+    private Classifier<String, String> classifier;
+    private String[] inputs;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void init() {
+        var schema = Schema.<Integer, String>create()
+                .withStringAttribute(0, x -> x, sparse);
+        List<MatchingConstraint<Integer, String>> constraints = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            constraints.add(MatchingConstraint.<Integer, String>anonymous()
+                    .eq(0, PREFIX + i)
+                    .priority(i)
+                    .classification("class" + i)
+                    .build());
+        }
+        classifier = Classifier.<Integer, String, String>builder(schema).build(constraints);
+        var random = new SplittableRandom(42);
+        inputs = new String[1024];
+        for (int i = 0; i < inputs.length; ++i) {
+            // copies, so the benchmark doesn't benefit from identity checks
+            inputs[i] = new String(random.nextDouble() < hitRate
+                    ? PREFIX + random.nextInt(count)
+                    : PREFIX + (count + random.nextInt(count)));
+        }
+    }
+
+    @Benchmark
+    public String classify() {
+        return classifier.classificationOrNull(inputs[index++ & (inputs.length - 1)]);
+    }
+}
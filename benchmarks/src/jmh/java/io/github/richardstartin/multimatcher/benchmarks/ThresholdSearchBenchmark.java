@@ -0,0 +1,56 @@
+package io.github.richardstartin.multimatcher.benchmarks;
+
+import io.github.richardstartin.multimatcher.core.Operation;
+import io.github.richardstartin.multimatcher.core.masks.BitsetMask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.nodes.IntNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+
+import static io.github.richardstartin.multimatcher.core.Utils.newArray;
+
+@State(Scope.Benchmark)
+public class ThresholdSearchBenchmark {
+
+    @Param({"16", "64", "256", "1024", "4096", "16384", "65536"})
+    int count;
+
+    private IntNode<BitsetMask> sorted;
+    private IntNode<BitsetMask> merged;
+    private int[] values;
+    private int index;
+
+    @SuppressWarnings("unchecked")
+    @Setup(Level.Trial)
+    public void init() {
+        MaskStore<BitsetMask> store = BitsetMask.store(64);
+        var random = new SplittableRandom(42);
+        sorted = new IntNode<>(store, Operation.EQ);
+        int[] thresholds = random.ints(count, 0, count * 16).toArray();
+        for (int i = 0; i < count; ++i) {
+            sorted.add(thresholds[i], i % 64);
+        }
+        sorted.optimise();
+        // the merged node is a dense table for narrow spans, or uses the Eytzinger layout once large enough
+        var nodes = (IntNode<BitsetMask>[]) newArray(IntNode.class, 1);
+        nodes[0] = sorted;
+        merged = IntNode.merge(store, 0, nodes);
+        values = new int[1024];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = random.nextBoolean()
+                    ? thresholds[random.nextInt(count)]
+                    : random.nextInt(count * 16);
+        }
+    }
+
+    @Benchmark
+    public int binarySearch() {
+        return sorted.match(values[index++ & (values.length - 1)], 0);
+    }
+
+    @Benchmark
+    public int merged() {
+        return merged.match(values[index++ & (values.length - 1)], 0);
+    }
+}
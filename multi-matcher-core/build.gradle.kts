@@ -4,6 +4,7 @@ dependencies {
     implementation("org.roaringbitmap:RoaringBitmap:${deps["roaringbitmap"]}")
     implementation("org.apache.commons:commons-collections4:${deps["commons-collections"]}")
     implementation("it.unimi.dsi:fastutil:${deps["fastutil"]}")
+    compileOnly("com.fasterxml.jackson.core:jackson-annotations:${deps["jackson"]}")
     testImplementation("com.google.guava:guava:${deps["guava"]}")
     testImplementation("org.junit.jupiter:junit-jupiter-api:${deps["jupiter"]}")
     testImplementation("org.junit.jupiter:junit-jupiter-engine:${deps["jupiter"]}")
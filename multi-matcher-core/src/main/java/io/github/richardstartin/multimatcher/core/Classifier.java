@@ -5,6 +5,7 @@ import io.github.richardstartin.multimatcher.core.masks.BitsetMask;
 import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 import io.github.richardstartin.multimatcher.core.masks.RoaringMask;
 import io.github.richardstartin.multimatcher.core.masks.WordMask;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import java.util.*;
 import java.util.function.Consumer;
@@ -102,38 +103,53 @@ public interface Classifier<T, C> {
          * @return the classifier
          */
         public Classifier<Input, Classification> build(List<MatchingConstraint<Key, Classification>> constraints) {
-            int maxPriority = constraints.size();
+            constraints.sort(comparingInt(rd -> order(rd.getPriority())));
+            // rules with alternatives are compiled into a rule for each combination of alternatives
+            List<Map<Key, List<Constraint>>> conjunctions = new ArrayList<>(constraints.size());
+            List<Classification> conjunctionClassifications = new ArrayList<>(constraints.size());
+            var rules = new IntArrayList(constraints.size());
+            for (int rule = 0; rule < constraints.size(); ++rule) {
+                var spec = constraints.get(rule);
+                for (var conjunction : spec.expand()) {
+                    conjunctions.add(conjunction);
+                    conjunctionClassifications.add(spec.getClassification());
+                    rules.add(rule);
+                }
+            }
+            int maxPriority = conjunctions.size();
+            classifications = (Classification[]) conjunctionClassifications.toArray();
+            // the logical rule of each conjunction is only needed when there are alternatives
+            int[] ruleIds = maxPriority == constraints.size() ? null : rules.toIntArray();
             if (maxPriority < WordMask.MAX_CAPACITY) {
-                return build(constraints, WordMask.store(maxPriority), maxPriority);
+                return build(conjunctions, ruleIds, WordMask.store(maxPriority), maxPriority);
             }
             if (maxPriority < BitsetMask.MAX_CAPACITY) {
-                return build(constraints, BitsetMask.store(maxPriority), maxPriority);
+                return build(conjunctions, ruleIds, BitsetMask.store(maxPriority), maxPriority);
             }
-            return build(constraints, RoaringMask.store(optimisedStorageSpace, useDirectBuffers), maxPriority);
+            return build(conjunctions, ruleIds, RoaringMask.store(optimisedStorageSpace, useDirectBuffers), maxPriority);
         }
 
         private <MaskType extends Mask<MaskType>>
-        MaskedClassifier<MaskType, Input, Classification> build(List<MatchingConstraint<Key, Classification>> specs,
+        MaskedClassifier<MaskType, Input, Classification> build(List<Map<Key, List<Constraint>>> conjunctions,
+                                                                int[] rules,
                                                                 MaskStore<MaskType> maskStore,
                                                                 int max) {
-            classifications = (Classification[]) new Object[max];
             int sequence = 0;
-            specs.sort(comparingInt(rd -> order(rd.getPriority())));
-            for (var spec : specs) {
-                addMatchingConstraint(spec, sequence++, maskStore, max);
+            for (var conjunction : conjunctions) {
+                addConstraints(conjunction, sequence++, maskStore, max);
             }
-            return new MaskedClassifier<>(classifications, freezeMatchers(), maskStore.contiguous(max));
+            return new MaskedClassifier<>(classifications, rules, freezeMatchers(), maskStore.contiguous(max),
+                    schema.getDerived());
         }
 
         private <MaskType extends Mask<MaskType>>
-        void addMatchingConstraint(MatchingConstraint<Key, Classification> matchInfo,
-                                   int priority,
-                                   MaskStore<MaskType> maskStore,
-                                   int max) {
-            classifications[priority] = matchInfo.getClassification();
-            for (var pair : matchInfo.getConstraints().entrySet()) {
+        void addConstraints(Map<Key, List<Constraint>> constraints,
+                            int priority,
+                            MaskStore<MaskType> maskStore,
+                            int max) {
+            for (var pair : constraints.entrySet()) {
                 getOrCreateAccumulator(pair.getKey(), maskStore, max)
-                        .addConstraint(pair.getValue(), priority);
+                        .addConstraints(pair.getValue(), priority);
             }
         }
 
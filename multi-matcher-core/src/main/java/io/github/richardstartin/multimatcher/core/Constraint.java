@@ -1,5 +1,10 @@
 package io.github.richardstartin.multimatcher.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
 public class Constraint {
 
     private Operation operation;
@@ -36,6 +41,96 @@ public class Constraint {
         return condition(Operation.STARTS_WITH, prefix);
     }
 
+    /**
+     * A closed range, which is satisfied by values both greater than or
+     * equal to the lower bound and less than or equal to the upper bound.
+     *
+     * @param lower the inclusive lower bound
+     * @param upper the inclusive upper bound
+     * @return a range constraint
+     */
+    public static Constraint between(Comparable<?> lower, Comparable<?> upper) {
+        return condition(Operation.BETWEEN, List.of(lower, upper));
+    }
+
+    /**
+     * Satisfied by floating point values within a tolerance of the value,
+     * such as computed values which are rarely exactly equal to a value in
+     * a rule. This is a closed range, which is matched with the same
+     * interval lookup as other ranges.
+     *
+     * @param value   the expected value
+     * @param epsilon the largest permitted difference from the value
+     * @return a range constraint
+     */
+    public static Constraint approximatelyEqualTo(double value, double epsilon) {
+        if (!(epsilon >= 0) || !Double.isFinite(value)) {
+            throw new IllegalArgumentException("Can't match " + value + " with tolerance " + epsilon);
+        }
+        return between(value - epsilon, value + epsilon);
+    }
+
+    /**
+     * Satisfied by values equal to any of the values.
+     *
+     * @param values the permitted values
+     * @return a membership constraint
+     */
+    public static Constraint in(Collection<?> values) {
+        return condition(Operation.IN, List.copyOf(values));
+    }
+
+    /**
+     * Satisfied by points inside or on the boundary of the box. Boxes
+     * crossing the antimeridian must be split into two rules.
+     *
+     * @param minLatitude  the southern boundary
+     * @param minLongitude the western boundary
+     * @param maxLatitude  the northern boundary
+     * @param maxLongitude the eastern boundary
+     * @return a bounding box constraint
+     */
+    public static Constraint withinBox(double minLatitude, double minLongitude,
+                                       double maxLatitude, double maxLongitude) {
+        return condition(Operation.WITHIN, List.of(minLatitude, minLongitude, maxLatitude, maxLongitude));
+    }
+
+    /**
+     * Satisfied only by missing values, whatever the missing value policy.
+     *
+     * @return a null check
+     */
+    public static Constraint isNull() {
+        return condition(Operation.IS_NULL, null);
+    }
+
+    /**
+     * Satisfied only by values which are present, whatever the missing value policy.
+     *
+     * @return a null check
+     */
+    public static Constraint isNotNull() {
+        return condition(Operation.IS_NOT_NULL, null);
+    }
+
+    /**
+     * Converts the value, or each value of a range or membership constraint,
+     * for attributes which match values of a different type.
+     *
+     * @param conversion the conversion
+     * @return a constraint with the same operation and the converted values
+     */
+    public Constraint convert(Function<Object, ?> conversion) {
+        if (operation == Operation.BETWEEN || operation == Operation.IN) {
+            List<Object> values = new ArrayList<>();
+            for (Object element : this.<List<?>>getValue()) {
+                values.add(conversion.apply(element));
+            }
+            return condition(operation, values);
+        }
+        return condition(operation, conversion.apply(value));
+    }
+
     private static Constraint condition(Operation op, Object value) {
         Constraint rc = new Constraint();
         rc.operation = op;
@@ -1,5 +1,7 @@
 package io.github.richardstartin.multimatcher.core;
 
+import java.util.List;
+
 /**
  * A matcher is a column named constraints on the same attribute.
  *
@@ -15,6 +17,22 @@ public interface ConstraintAccumulator<T, MaskType> {
      */
     boolean addConstraint(Constraint constraint, int priority);
 
+    /**
+     * Adds several constraints on the same attribute to the rule, all of which
+     * must be matched by inputs. Accumulators which can combine the constraints
+     * into a single condition should override this method.
+     *
+     * @param constraints conditions which must all be matched by inputs
+     * @param priority    the identity named the constraint
+     */
+    default boolean addConstraints(List<Constraint> constraints, int priority) {
+        boolean added = false;
+        for (var constraint : constraints) {
+            added |= addConstraint(constraint, priority);
+        }
+        return added;
+    }
+
     /**
      * Freezes the column. DO NOT remove constraints after calling this method.
      */
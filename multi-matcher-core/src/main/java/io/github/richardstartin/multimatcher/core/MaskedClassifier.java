@@ -1,5 +1,7 @@
 package io.github.richardstartin.multimatcher.core;
 
+import io.github.richardstartin.multimatcher.core.schema.Derived;
+
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -7,28 +9,65 @@ public class MaskedClassifier<MaskType extends Mask<MaskType>, Input, Classifica
         implements Classifier<Input, Classification> {
 
     private final Classification[] classifications;
+    // the logical rule of each bit, when rules were compiled into several bits
+    private final int[] rules;
     private final Matcher<Input, MaskType>[] matchers;
     private final Mask<MaskType> mask;
-    private final ThreadLocal<MaskType> context;
+    private final ThreadLocal<Context<MaskType>> context;
 
     public MaskedClassifier(Classification[] classifications,
                             Matcher<Input, MaskType>[] matchers,
                             Mask<MaskType> mask) {
+        this(classifications, null, matchers, mask, new Derived<?, ?>[0]);
+    }
+
+    public MaskedClassifier(Classification[] classifications,
+                            int[] rules,
+                            Matcher<Input, MaskType>[] matchers,
+                            Mask<MaskType> mask,
+                            Derived<?, ?>[] derived) {
         this.classifications = classifications;
+        this.rules = rules;
         this.matchers = matchers;
         this.mask = mask;
-        this.context = ThreadLocal.withInitial(mask::clone);
+        this.context = ThreadLocal.withInitial(() -> new Context<>(mask.clone(), new MatchContext(derived)));
         mask.optimise();
     }
 
     @Override
     public void forEachClassification(Input value, Consumer<Classification> consumer) {
-        match(value).forEach(i -> consumer.accept(classifications[i]));
+        if (null == rules) {
+            match(value).forEach(i -> consumer.accept(classifications[i]));
+        } else {
+            // the bits of each rule are adjacent, so only the first matching bit is reported
+            var it = match(value).stream().iterator();
+            int previous = -1;
+            while (it.hasNext()) {
+                int i = it.nextInt();
+                if (rules[i] != previous) {
+                    previous = rules[i];
+                    consumer.accept(classifications[i]);
+                }
+            }
+        }
     }
 
     @Override
     public int matchCount(Input value) {
-        return match(value).cardinality();
+        if (null == rules) {
+            return match(value).cardinality();
+        }
+        var it = match(value).stream().iterator();
+        int previous = -1;
+        int count = 0;
+        while (it.hasNext()) {
+            int rule = rules[it.nextInt()];
+            if (rule != previous) {
+                previous = rule;
+                ++count;
+            }
+        }
+        return count;
     }
 
     @Override
@@ -45,13 +84,26 @@ public class MaskedClassifier<MaskType extends Mask<MaskType>, Input, Classifica
     }
 
     private MaskType match(Input value) {
-        var ctx = context.get().resetTo(mask);
+        var context = this.context.get();
+        var ctx = context.mask.resetTo(mask);
         for (var matcher : matchers) {
-            matcher.match(value, ctx);
+            matcher.match(value, ctx, context.derived);
             if (ctx.isEmpty()) {
                 break;
             }
         }
+        // don't hold on to the input, or reuse what was derived from it if it changes
+        context.derived.reset();
         return ctx;
     }
+
+    private static final class Context<MaskType> {
+        final MaskType mask;
+        final MatchContext derived;
+
+        Context(MaskType mask, MatchContext derived) {
+            this.mask = mask;
+            this.derived = derived;
+        }
+    }
 }
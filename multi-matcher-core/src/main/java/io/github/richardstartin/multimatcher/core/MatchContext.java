@@ -0,0 +1,58 @@
+package io.github.richardstartin.multimatcher.core;
+
+import io.github.richardstartin.multimatcher.core.schema.Derived;
+
+import java.util.Arrays;
+
+/**
+ * The values derived from the input during one classification. It is kept
+ * with the mask of the classifying thread, so each value is derived at most
+ * once per classification without a thread local lookup or an allocation.
+ */
+public final class MatchContext {
+
+    private static final Object NONE = new Object();
+
+    private final Derived<?, ?>[] derived;
+    private final Object[] values;
+
+    MatchContext(Derived<?, ?>[] derived) {
+        this.derived = derived;
+        this.values = new Object[derived.length];
+        Arrays.fill(values, NONE);
+    }
+
+    /**
+     * Gets the value derived from the input, deriving it if this is the
+     * first time it is needed in the classification.
+     *
+     * @param derivation the derivation
+     * @param input      the classified object
+     * @param <T>        the type of the classified objects
+     * @param <D>        the type of the derived value
+     * @return the derived value
+     */
+    @SuppressWarnings("unchecked")
+    public <T, D> D derive(Derived<T, D> derivation, T input) {
+        // there are only ever a few derivations, so a scan is cheaper than hashing
+        for (int i = 0; i < derived.length; ++i) {
+            if (derived[i] == derivation) {
+                if (NONE == values[i]) {
+                    values[i] = derivation.apply(input);
+                }
+                return (D) values[i];
+            }
+        }
+        return derivation.apply(input);
+    }
+
+    /**
+     * Forgets the derived values, so the input isn't retained and is derived
+     * again if it is classified after being modified.
+     */
+    void reset() {
+        if (values.length > 0) {
+            Arrays.fill(values, NONE);
+        }
+    }
+}
@@ -10,6 +10,18 @@ public interface Matcher<T, MaskType> {
      */
     void match(T value, MaskType context);
 
+    /**
+     * Matches the value with access to the state of the classification,
+     * which only matchers of derived values need.
+     *
+     * @param value        the value to match
+     * @param context      the identities named constraints satisfied prior to the match
+     * @param matchContext the values derived from the input so far
+     */
+    default void match(T value, MaskType context, MatchContext matchContext) {
+        match(value, context);
+    }
+
     default float averageSelectivity() {
         return 1;
     }
@@ -1,9 +1,8 @@
 package io.github.richardstartin.multimatcher.core;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.UUID;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.util.*;
 
 import static java.util.Objects.requireNonNull;
 
@@ -11,7 +10,10 @@ import static java.util.Objects.requireNonNull;
 public class MatchingConstraint<Key, Classification> {
 
     private String id;
-    private Map<Key, Constraint> constraints;
+    // rule files written before rules could have several constraints per attribute have a single constraint
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+    private Map<Key, List<Constraint>> constraints;
+    private List<List<Map<Key, List<Constraint>>>> anyOf = List.of();
     private int priority;
     private Classification classification;
     @SuppressWarnings("unused")
@@ -22,7 +24,22 @@ public class MatchingConstraint<Key, Classification> {
                               int priority,
                               Classification classification) {
         this.id = id;
+        this.constraints = new HashMap<>();
+        for (var constraint : constraints.entrySet()) {
+            this.constraints.put(constraint.getKey(), List.of(constraint.getValue()));
+        }
+        this.priority = priority;
+        this.classification = classification;
+    }
+
+    private MatchingConstraint(String id,
+                               int priority,
+                               Map<Key, List<Constraint>> constraints,
+                               List<List<Map<Key, List<Constraint>>>> anyOf,
+                               Classification classification) {
+        this.id = id;
         this.constraints = constraints;
+        this.anyOf = anyOf;
         this.priority = priority;
         this.classification = classification;
     }
@@ -39,10 +56,54 @@ public class MatchingConstraint<Key, Classification> {
         return id;
     }
 
-    public Map<Key, Constraint> getConstraints() {
+    /**
+     * Gets the constraints of the rule, all of which must be satisfied.
+     * There may be several constraints on the same attribute.
+     *
+     * @return the constraints on each attribute
+     */
+    public Map<Key, List<Constraint>> getConstraints() {
         return constraints;
     }
 
+    /**
+     * Gets the groups of alternatives of the rule. For each group, the
+     * constraints of at least one alternative must be satisfied as well as
+     * the constraints of the rule.
+     *
+     * @return the groups of alternative constraints on each attribute
+     */
+    public List<List<Map<Key, List<Constraint>>>> getAnyOf() {
+        return null == anyOf ? List.of() : anyOf;
+    }
+
+    /**
+     * Expands the groups of alternatives into conjunctions of constraints,
+     * one for each combination of alternatives, which the rule is satisfied by
+     * any of.
+     *
+     * @return the constraints of each conjunction
+     */
+    public List<Map<Key, List<Constraint>>> expand() {
+        List<Map<Key, List<Constraint>>> conjunctions = List.of(null == constraints ? Map.of() : constraints);
+        for (var group : getAnyOf()) {
+            List<Map<Key, List<Constraint>>> expanded = new ArrayList<>(conjunctions.size() * group.size());
+            for (var conjunction : conjunctions) {
+                for (var alternative : group) {
+                    Map<Key, List<Constraint>> combined = new HashMap<>();
+                    for (var map : List.of(conjunction, alternative)) {
+                        for (var entry : map.entrySet()) {
+                            combined.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue());
+                        }
+                    }
+                    expanded.add(combined);
+                }
+            }
+            conjunctions = expanded;
+        }
+        return conjunctions;
+    }
+
     public int getPriority() {
         return priority;
     }
@@ -59,12 +120,13 @@ public class MatchingConstraint<Key, Classification> {
         return priority == that.priority &&
                 Objects.equals(id, that.id) &&
                 Objects.equals(constraints, that.constraints) &&
+                Objects.equals(getAnyOf(), that.getAnyOf()) &&
                 Objects.equals(classification, that.classification);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, constraints, priority, classification);
+        return Objects.hash(id, constraints, getAnyOf(), priority, classification);
     }
 
     @Override
@@ -72,6 +134,7 @@ public class MatchingConstraint<Key, Classification> {
         return "MatchingConstraint{" +
                 "id='" + id + '\'' +
                 ", constraints=" + constraints +
+                ", anyOf=" + getAnyOf() +
                 ", priority=" + priority +
                 ", classification=" + classification +
                 '}';
@@ -80,7 +143,8 @@ public class MatchingConstraint<Key, Classification> {
     public static class Builder<K, C> {
 
         private final String id;
-        private Map<K, Constraint> constraints = new HashMap<>();
+        private Map<K, List<Constraint>> constraints = new HashMap<>();
+        private List<List<Map<K, List<Constraint>>>> anyOf = new ArrayList<>();
         private int priority;
         private C classification;
 
@@ -96,6 +160,33 @@ public class MatchingConstraint<Key, Classification> {
             return constraint(key, Constraint.notEqualTo(value));
         }
 
+        public Builder<K, C> in(K key, Object... values) {
+            return constraint(key, Constraint.in(List.of(values)));
+        }
+
+        /**
+         * Requires the attribute to differ from every one of the values,
+         * which is the same as a not equal constraint on each value.
+         *
+         * @param key    the attribute key
+         * @param values the excluded values
+         * @return this builder
+         */
+        public Builder<K, C> notIn(K key, Object... values) {
+            for (Object value : values) {
+                neq(key, value);
+            }
+            return this;
+        }
+
+        public Builder<K, C> isNull(K key) {
+            return constraint(key, Constraint.isNull());
+        }
+
+        public Builder<K, C> isNotNull(K key) {
+            return constraint(key, Constraint.isNotNull());
+        }
+
         public Builder<K, C> lt(K key, Comparable<?> value) {
             return constraint(key, Constraint.lessThan(value));
         }
@@ -112,17 +203,66 @@ public class MatchingConstraint<Key, Classification> {
             return constraint(key, Constraint.greaterThanOrEqualTo(value));
         }
 
+        public Builder<K, C> between(K key, Comparable<?> lower, Comparable<?> upper) {
+            return constraint(key, Constraint.between(lower, upper));
+        }
+
+        /**
+         * Requires a floating point attribute to be within a tolerance of the value.
+         *
+         * @param key     the attribute key
+         * @param value   the expected value
+         * @param epsilon the largest permitted difference from the value
+         * @return this builder
+         */
+        public Builder<K, C> approxEq(K key, double value, double epsilon) {
+            return constraint(key, Constraint.approximatelyEqualTo(value, epsilon));
+        }
+
+        public Builder<K, C> withinBox(K key, double minLatitude, double minLongitude,
+                                       double maxLatitude, double maxLongitude) {
+            return constraint(key, Constraint.withinBox(minLatitude, minLongitude, maxLatitude, maxLongitude));
+        }
+
         public Builder<K, C> startsWith(K key, String prefix) {
             return constraint(key, Constraint.startsWith(prefix));
         }
 
+        /**
+         * Requires the constraints of at least one of the alternatives to be
+         * satisfied, as well as the other constraints of the rule. Only the
+         * constraints of the alternatives are used, so they can be built with
+         * {@link #anonymous()}. Each group of alternatives is compiled into a
+         * rule per alternative with the same priority and classification,
+         * but the rule is only counted once when several alternatives match.
+         *
+         * @param alternatives the alternatives
+         * @return this builder
+         */
+        @SafeVarargs
+        public final Builder<K, C> anyOf(Builder<K, ?>... alternatives) {
+            List<Map<K, List<Constraint>>> group = new ArrayList<>(alternatives.length);
+            for (var alternative : alternatives) {
+                if (!alternative.anyOf.isEmpty()) {
+                    throw new IllegalArgumentException("Alternatives can't be nested");
+                }
+                group.add(alternative.constraints);
+            }
+            if (group.isEmpty()) {
+                throw new IllegalArgumentException("No alternatives");
+            }
+            anyOf.add(group);
+            return this;
+        }
+
         public Builder<K, C> priority(int value) {
             this.priority = value;
             return this;
         }
 
         public Builder<K, C> constraint(K key, Constraint constraint) {
-            this.constraints.put(requireNonNull(key), requireNonNull(constraint));
+            this.constraints.computeIfAbsent(requireNonNull(key), k -> new ArrayList<>())
+                    .add(requireNonNull(constraint));
             return this;
         }
 
@@ -133,10 +273,10 @@ public class MatchingConstraint<Key, Classification> {
 
 
         public MatchingConstraint<K, C> build() {
-            if (constraints.isEmpty()) {
+            if (constraints.isEmpty() && anyOf.isEmpty()) {
                 throw new IllegalStateException("Unconstrained rule");
             }
-            return new MatchingConstraint<>(id, constraints, priority, requireNonNull(classification));
+            return new MatchingConstraint<>(id, priority, constraints, anyOf, requireNonNull(classification));
         }
     }
 }
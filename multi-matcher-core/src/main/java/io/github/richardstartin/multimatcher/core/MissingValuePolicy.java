@@ -0,0 +1,27 @@
+package io.github.richardstartin.multimatcher.core;
+
+/**
+ * How a missing (null) attribute value is matched against constraints on
+ * other values. Under every policy, {@link Operation#IS_NULL} and equality
+ * with null are only satisfied by missing values, and
+ * {@link Operation#IS_NOT_NULL} and inequality with null are only satisfied
+ * by present values. The mask for missing values is computed when the
+ * classifier is built, so they are never looked up.
+ */
+public enum MissingValuePolicy {
+    /**
+     * A missing value is distinct from every other value, so it satisfies
+     * inequality constraints, but no equality, membership or range constraints.
+     */
+    AS_VALUE,
+    /**
+     * A missing value satisfies every constraint, as if the rule didn't
+     * constrain the attribute.
+     */
+    WILDCARD,
+    /**
+     * A missing value satisfies no constraint, so only rules which don't
+     * constrain the attribute can match.
+     */
+    NEVER_MATCH
+}
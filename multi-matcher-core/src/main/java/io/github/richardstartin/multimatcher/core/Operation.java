@@ -7,7 +7,12 @@ public enum Operation {
     GE("≥"),
     EQ("="),
     NE("≠"),
-    STARTS_WITH("starts_with");
+    STARTS_WITH("starts_with"),
+    BETWEEN("between"),
+    IN("in"),
+    WITHIN("within"),
+    IS_NULL("is_null"),
+    IS_NOT_NULL("is_not_null");
 
     public static int SIZE = values().length;
 
@@ -2,9 +2,16 @@ package io.github.richardstartin.multimatcher.core;
 
 import io.github.richardstartin.multimatcher.core.schema.*;
 
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.*;
 
@@ -21,6 +28,9 @@ public class Schema<Key, Input> {
 
     private final Supplier<Map<Key, ?>> prototype;
     private final Map<Key, Attribute<Input>> attributes;
+    private final List<Derived<?, ?>> derived = new ArrayList<>();
+    private final Map<Key, MissingValuePolicy> missingValuePolicies = new HashMap<>();
+    private MissingValuePolicy missingValuePolicy;
 
     private Schema(Supplier<Map<Key, ?>> prototype, Map<Key, Attribute<Input>> attributes) {
         this.prototype = prototype;
@@ -65,7 +75,64 @@ public class Schema<Key, Input> {
      * @return an attribute registry containing the attribute
      */
     public <U> Schema<Key, Input> withAttribute(Key key, Function<Input, U> accessor) {
-        attributes.put(key, new GenericAttribute<>(accessor));
+        attributes.put(key, new MissingValueAttribute<>(accessor, new GenericAttribute<U, U>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers an attribute with several values, such as a set of tags, with
+     * equality semantics only. Equality and membership constraints are
+     * satisfied when any of the values is permitted, and inequality
+     * constraints when none of the values is excluded. A rule may have at most
+     * one equality or membership constraint on the attribute.
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts the values from the classified object
+     * @param <U>      the type of the values
+     * @return an attribute registry containing the attribute
+     */
+    public <U> Schema<Key, Input> withMultiValuedAttribute(Key key, Function<Input, ? extends Iterable<U>> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor,
+                new MultiValuedAttribute<Iterable<U>, U>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers an attribute with several values held in an array, with the
+     * same semantics as {@link #withMultiValuedAttribute(Object, Function)}.
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts the values from the classified object
+     * @param <U>      the type of the values
+     * @return an attribute registry containing the attribute
+     */
+    public <U> Schema<Key, Input> withMultiValuedArrayAttribute(Key key, Function<Input, U[]> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor,
+                new MultiValuedAttribute<U[], U>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers an attribute with equality semantics only on a tuple of
+     * values, such as a country and a currency. Rules constrain the attribute
+     * with lists containing a value for each accessor, and the tuple is matched
+     * with a single lookup, which is faster than an attribute per component
+     * when the components are correlated.
+     *
+     * @param key       the key of the attribute (rules refer to this)
+     * @param accessors extract each component from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    @SafeVarargs
+    public final Schema<Key, Input> withCompositeAttribute(Key key, Function<Input, ?>... accessors) {
+        if (accessors.length == 0) {
+            throw new IllegalArgumentException("A composite attribute needs at least one component");
+        }
+        var components = new ArrayList<Function<Input, ?>>(accessors.length);
+        for (var accessor : accessors) {
+            components.add(accessor);
+        }
+        attributes.put(key, new CompositeAttribute<>(components));
         return this;
     }
 
@@ -77,7 +144,97 @@ public class Schema<Key, Input> {
      * @return an attribute registry containing the attribute
      */
     public Schema<Key, Input> withStringAttribute(Key key, Function<Input, String> accessor) {
-        attributes.put(key, new StringAttribute<>(accessor));
+        attributes.put(key, new MissingValueAttribute<>(accessor, new StringAttribute<String>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers a string attribute with equality semantics only, where most
+     * inputs are expected to match none of the values in the rules. A Bloom
+     * filter rejects most absent values without probing the hash table.
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @param sparse   whether most inputs are expected to match no value
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withStringAttribute(Key key, Function<Input, String> accessor, boolean sparse) {
+        attributes.put(key, new MissingValueAttribute<>(accessor,
+                new StringAttribute<String>(Function.identity(), sparse)));
+        return this;
+    }
+
+    /**
+     * Registers a string attribute with equality semantics only, where values
+     * which differ only in case are equal. The input is compared with the
+     * values in the rules without being converted to lower case.
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withCaseInsensitiveStringAttribute(Key key, Function<Input, String> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor,
+                new CaseInsensitiveStringAttribute<String>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers a string attribute with equality semantics only, where the
+     * classified object exposes the value as UTF-8 encoded bytes. The bytes
+     * between the position and limit of the buffer are compared with the
+     * encoded values, so no string is created per input.
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts the UTF-8 encoded value from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withUtf8Attribute(Key key, Function<Input, ByteBuffer> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor, new Utf8Attribute<ByteBuffer>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers a string attribute with equality semantics only, where the
+     * classified object exposes the value as any character sequence, which
+     * is compared by content with the values in the rules.
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withCharSequenceAttribute(Key key, Function<Input, CharSequence> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor,
+                new CharSequenceAttribute<CharSequence>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers a string attribute with equality semantics only, where the
+     * classified object exposes the code the dictionary assigned to the value.
+     * The values referred to by the rules are added to the dictionary when
+     * the classifier is built, and codes the classifier has not seen match
+     * the same rules as any value not referred to by a rule.
+     *
+     * @param key        the key of the attribute (rules refer to this)
+     * @param dictionary the dictionary which assigns the codes
+     * @param accessor   extracts the code of the value from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withDictionaryAttribute(Key key, StringDictionary dictionary, ToIntFunction<Input> accessor) {
+        attributes.put(key, new DictionaryAttribute<>(dictionary, accessor));
+        return this;
+    }
+
+    /**
+     * Registers a boolean attribute with equality semantics only
+     *
+     * @param key       the key of the attribute (rules refer to this)
+     * @param predicate computes the value from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withBooleanAttribute(Key key, Predicate<Input> predicate) {
+        attributes.put(key, new BooleanAttribute<>(predicate));
         return this;
     }
 
@@ -90,7 +247,7 @@ public class Schema<Key, Input> {
      * @return an attribute registry containing the attribute
      */
     public <E extends Enum<E>> Schema<Key, Input> withEnumAttribute(Key key, Function<Input, E> accessor, Class<E> type) {
-        attributes.put(key, new EnumAttribute<>(type, accessor));
+        attributes.put(key, new MissingValueAttribute<>(accessor, new EnumAttribute<E, E>(type, Function.identity())));
         return this;
     }
 
@@ -103,7 +260,8 @@ public class Schema<Key, Input> {
      * @return an attribute registry containing the attribute
      */
     public <U> Schema<Key, Input> withAttribute(Key key, Function<Input, U> accessor, Comparator<U> comparator) {
-        attributes.put(key, new ComparableAttribute<>(comparator, accessor));
+        attributes.put(key, new MissingValueAttribute<>(accessor,
+                new ComparableAttribute<U, U>(comparator, Function.identity())));
         return this;
     }
 
@@ -143,6 +301,159 @@ public class Schema<Key, Input> {
         return this;
     }
 
+    /**
+     * Registers a float attribute with equality and order semantics
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withFloatAttribute(Key key, ToFloatFunction<Input> accessor) {
+        attributes.put(key, new FloatAttribute<>(accessor));
+        return this;
+    }
+
+    /**
+     * Registers a short attribute with equality and order semantics
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withShortAttribute(Key key, ToShortFunction<Input> accessor) {
+        attributes.put(key, new ShortAttribute<>(accessor));
+        return this;
+    }
+
+    /**
+     * Registers a byte attribute with equality and order semantics
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withByteAttribute(Key key, ToByteFunction<Input> accessor) {
+        attributes.put(key, new ByteAttribute<>(accessor));
+        return this;
+    }
+
+    /**
+     * Registers a char attribute with equality and order semantics
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withCharAttribute(Key key, ToCharFunction<Input> accessor) {
+        attributes.put(key, new CharAttribute<>(accessor));
+        return this;
+    }
+
+    /**
+     * Registers an instant attribute with equality and order semantics, where
+     * values are encoded as longs rather than compared as objects
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withInstantAttribute(Key key, Function<Input, Instant> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor, new InstantAttribute<Instant>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers a date attribute with equality and order semantics, where
+     * values are encoded as longs rather than compared as objects
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withLocalDateAttribute(Key key, Function<Input, LocalDate> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor, new LocalDateAttribute<LocalDate>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers a time of day attribute with equality and order semantics, where
+     * values are encoded as longs rather than compared as objects
+     *
+     * @param key      the key of the attribute (rules refer to this)
+     * @param accessor extracts a value of type Input from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withLocalTimeAttribute(Key key, Function<Input, LocalTime> accessor) {
+        attributes.put(key, new MissingValueAttribute<>(accessor, new LocalTimeAttribute<LocalTime>(Function.identity())));
+        return this;
+    }
+
+    /**
+     * Registers a point attribute, which rules constrain to bounding boxes
+     *
+     * @param key       the key of the attribute (rules refer to this)
+     * @param latitude  extracts the latitude from the classified object
+     * @param longitude extracts the longitude from the classified object
+     * @return an attribute registry containing the attribute
+     */
+    public Schema<Key, Input> withGeoAttribute(Key key, ToDoubleFunction<Input> latitude, ToDoubleFunction<Input> longitude) {
+        attributes.put(key, new GeoAttribute<>(latitude, longitude));
+        return this;
+    }
+
+    /**
+     * Sets how missing values of attributes without a policy of their own
+     * are matched, which is {@link MissingValuePolicy#AS_VALUE} by default.
+     * Primitive attributes can't have missing values.
+     *
+     * @param policy how missing values are matched
+     * @return an attribute registry with the policy
+     */
+    public Schema<Key, Input> withMissingValues(MissingValuePolicy policy) {
+        this.missingValuePolicy = policy;
+        return this;
+    }
+
+    /**
+     * Sets how missing values of an attribute are matched.
+     *
+     * @param key    the key of the attribute
+     * @param policy how missing values are matched
+     * @return an attribute registry with the policy
+     */
+    public Schema<Key, Input> withMissingValues(Key key, MissingValuePolicy policy) {
+        missingValuePolicies.put(key, policy);
+        return this;
+    }
+
+    /**
+     * Registers attributes of a value derived from the classified object,
+     * such as a parsed document, which is derived at most once per
+     * classification and shared by all of the attributes.
+     *
+     * @param derivation derives the value from the classified object
+     * @param attributes registers the attributes of the derived value
+     * @param <D>        the type of the derived value
+     * @return an attribute registry containing the attributes
+     */
+    public <D> Schema<Key, Input> withDerived(Function<Input, D> derivation,
+                                              Consumer<Schema<Key, D>> attributes) {
+        var value = new Derived<>(derivation);
+        var schema = Schema.<Key, D>create();
+        attributes.accept(schema);
+        for (var attribute : schema.attributes.entrySet()) {
+            this.attributes.put(attribute.getKey(), new DerivedAttribute<>(value, attribute.getValue()));
+            // policies set on this schema take precedence over those of the derived value
+            var policy = schema.missingValuePolicies.getOrDefault(attribute.getKey(), schema.missingValuePolicy);
+            if (null != policy) {
+                missingValuePolicies.putIfAbsent(attribute.getKey(), policy);
+            }
+        }
+        derived.add(value);
+        derived.addAll(schema.derived);
+        return this;
+    }
+
     /**
      * Get the attribute builder the supplied key if it exists
      *
@@ -154,7 +465,15 @@ public class Schema<Key, Input> {
         if (null == attribute) {
             throw new AttributeNotRegistered("No attribute " + key + " registered.");
         }
-        return attribute;
+        var policy = missingValuePolicies.getOrDefault(key, missingValuePolicy);
+        return attribute.withMissingValues(null == policy ? MissingValuePolicy.AS_VALUE : policy);
+    }
+
+    /**
+     * @return the derived values, which must be reset after each classification
+     */
+    Derived<?, ?>[] getDerived() {
+        return derived.toArray(Derived[]::new);
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,86 @@
+package io.github.richardstartin.multimatcher.core;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns dense int codes to strings, so that inputs which are already
+ * dictionary encoded can be classified by code. Building a classifier adds
+ * every value referred to by the rules of a dictionary attribute, and each
+ * distinct input string can then be resolved once with {@link #code(String)}
+ * and cached. Codes are never reassigned, but the dictionary is not thread
+ * safe while codes are being added.
+ */
+public class StringDictionary {
+
+    /**
+     * The code of strings which are not in the dictionary, which matches
+     * the same rules as any other value not referred to by a rule.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private final Object2IntOpenHashMap<String> codes = new Object2IntOpenHashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public StringDictionary() {
+        codes.defaultReturnValue(NOT_FOUND);
+    }
+
+    /**
+     * Creates a dictionary with pre-assigned codes.
+     *
+     * @param values the values, where the code of each value is its index
+     * @return a dictionary containing the values
+     */
+    public static StringDictionary of(String... values) {
+        var dictionary = new StringDictionary();
+        for (String value : values) {
+            int size = dictionary.size();
+            if (dictionary.encode(value) != size) {
+                throw new IllegalArgumentException("Duplicate value " + value);
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Gets the code of the value, assigning the next code if it is absent.
+     *
+     * @param value the value
+     * @return the code of the value
+     */
+    public int encode(String value) {
+        int code = codes.getInt(value);
+        if (NOT_FOUND == code) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * @param value the value
+     * @return the code of the value, or NOT_FOUND
+     */
+    public int code(String value) {
+        return codes.getInt(value);
+    }
+
+    /**
+     * @param code a code assigned by this dictionary
+     * @return the value with the code
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * @return the number of codes assigned
+     */
+    public int size() {
+        return values.size();
+    }
+}
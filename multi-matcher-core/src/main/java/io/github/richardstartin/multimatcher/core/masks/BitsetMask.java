@@ -42,12 +42,20 @@ public class BitsetMask implements Mask<BitsetMask> {
 
     @Override
     public void add(int id) {
-        bitset[id >>> 6] |= (1L << id);
+        int wordIndex = id >>> 6;
+        bitset[wordIndex] |= (1L << id);
+        if (firstNonEmptyWord == KNOWN_EMPTY || firstNonEmptyWord > wordIndex) {
+            firstNonEmptyWord = wordIndex;
+        }
     }
 
     @Override
     public void remove(int id) {
-        bitset[id >>> 6] ^= (1L << id);
+        int wordIndex = id >>> 6;
+        bitset[wordIndex] &= ~(1L << id);
+        if (firstNonEmptyWord == wordIndex) {
+            firstNonEmptyWord = UNKNOWN_EMPTY;
+        }
     }
 
     @Override
@@ -223,7 +231,6 @@ public class BitsetMask implements Mask<BitsetMask> {
         int cardinality = 0;
         for (int i = firstNonEmptyWord; i < bitset.length; ++i) {
             cardinality += Long.bitCount(bitset[i]);
-            ++i;
         }
         return cardinality;
     }
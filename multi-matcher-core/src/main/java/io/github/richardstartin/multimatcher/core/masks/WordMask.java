@@ -38,7 +38,7 @@ public class WordMask implements Mask<WordMask> {
 
     @Override
     public void remove(int id) {
-        mask ^= (1L << id);
+        mask &= ~(1L << id);
     }
 
     @Override
@@ -181,7 +181,7 @@ public class WordMask implements Mask<WordMask> {
 
         @Override
         public void remove(int id, int bit) {
-            masks[id & (masks.length - 1)] ^= (1L << bit);
+            masks[id & (masks.length - 1)] &= ~(1L << bit);
         }
 
         @Override
@@ -290,7 +290,7 @@ public class WordMask implements Mask<WordMask> {
 
         @Override
         public void remove(int id, int bit) {
-            masks[id & (masks.length - 1)] ^= (1 << bit);
+            masks[id & (masks.length - 1)] &= ~(1 << bit);
         }
 
         @Override
@@ -0,0 +1,70 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import java.util.Collection;
+
+/**
+ * A Bloom filter over hash codes where all the bits of a value are set
+ * in the same 64 bit word, so a membership test reads a single word and
+ * compares it against a pattern. This has a slightly higher false positive
+ * rate than a classic Bloom filter of the same size, but never misses.
+ */
+final class BlockedBloomFilter {
+
+    private static final int BITS_PER_VALUE = 12;
+
+    private final long[] words;
+    private final int mask;
+
+    private BlockedBloomFilter(long[] words) {
+        this.words = words;
+        this.mask = words.length - 1;
+    }
+
+    /**
+     * Builds a filter containing the non-null values.
+     *
+     * @param values the values
+     * @return a filter which contains every value
+     */
+    static BlockedBloomFilter of(Collection<?> values) {
+        int required = Math.max(1, (int) ((long) values.size() * BITS_PER_VALUE / Long.SIZE));
+        var filter = new BlockedBloomFilter(new long[1 << (Integer.SIZE - Integer.numberOfLeadingZeros(required - 1))]);
+        for (Object value : values) {
+            if (null != value) {
+                filter.add(value.hashCode());
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * @param hashCode the hash code of a value
+     * @return false if the value is definitely absent
+     */
+    boolean mightContain(int hashCode) {
+        long hash = mix(hashCode);
+        long pattern = pattern(hash);
+        return (words[index(hash)] & pattern) == pattern;
+    }
+
+    private void add(int hashCode) {
+        long hash = mix(hashCode);
+        words[index(hash)] |= pattern(hash);
+    }
+
+    private int index(long hash) {
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private static long pattern(long hash) {
+        // shifts only use the low 6 bits, so each shift picks an independent bit
+        return (1L << hash) | (1L << (hash >>> 6)) | (1L << (hash >>> 12)) | (1L << (hash >>> 18));
+    }
+
+    private static long mix(int hashCode) {
+        long hash = hashCode * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 29);
+    }
+}
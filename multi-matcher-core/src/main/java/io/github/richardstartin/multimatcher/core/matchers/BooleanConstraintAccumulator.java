@@ -0,0 +1,32 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.HashMap;
+import java.util.function.Predicate;
+
+public class BooleanConstraintAccumulator<Input, MaskType extends Mask<MaskType>>
+        extends GenericConstraintAccumulator<Input, Boolean, MaskType> {
+
+    private final Predicate<Input> predicate;
+
+    public BooleanConstraintAccumulator(Predicate<Input> predicate,
+                                        MaskStore<MaskType> maskStore,
+                                        int max) {
+        super(Object2IntOpenHashMap::new, HashMap::new, predicate::test, maskStore, max);
+        this.predicate = predicate;
+    }
+
+    @Override
+    public Matcher<Input, MaskType> toMatcher() {
+        Object2IntMap<Boolean> masks = computeLiteralMasks();
+        int wildcardId = store.storeMask(wildcard);
+        return new BooleanMatcher<>(store, predicate,
+                masks.getOrDefault(Boolean.FALSE, wildcardId),
+                masks.getOrDefault(Boolean.TRUE, wildcardId));
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+
+import java.util.function.Predicate;
+
+class BooleanMatcher<T, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+    private final Predicate<T> predicate;
+    // the mask ids for false and true
+    private final int[] masks;
+    private final MaskStore<MaskType> store;
+
+    BooleanMatcher(MaskStore<MaskType> store,
+                   Predicate<T> predicate,
+                   int falseMask,
+                   int trueMask) {
+        this.predicate = predicate;
+        this.masks = new int[]{falseMask, trueMask};
+        this.store = store;
+    }
+
+    @Override
+    public void match(T input, MaskType context) {
+        store.andInto(context, masks[predicate.test(input) ? 1 : 0]);
+    }
+
+    @Override
+    public float averageSelectivity() {
+        return (float)store.averageSelectivity(masks);
+    }
+
+}
@@ -0,0 +1,65 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
+
+import java.util.function.Function;
+
+/**
+ * Accumulates string constraints where values which differ only in case
+ * are equal, as in {@link String#equalsIgnoreCase(String)}. The input is
+ * hashed and compared one folded character at a time, so it is never
+ * converted to lower case.
+ *
+ * @param <Input>    the type of the classified objects
+ * @param <MaskType> the mask type
+ */
+public class CaseInsensitiveStringConstraintAccumulator<Input, MaskType extends Mask<MaskType>>
+        extends GenericConstraintAccumulator<Input, String, MaskType> {
+
+    public CaseInsensitiveStringConstraintAccumulator(Function<Input, String> accessor,
+                                                      MaskStore<MaskType> maskStore,
+                                                      int max) {
+        super(() -> new Object2IntOpenCustomHashMap<>(STRATEGY),
+                () -> new Object2ObjectOpenCustomHashMap<>(STRATEGY),
+                accessor, maskStore, max);
+    }
+
+    @Override
+    public Matcher<Input, MaskType> toMatcher() {
+        Object2IntMap<String> masks = computeLiteralMasks();
+        // hashCode and equals are case sensitive
+        return new GenericMatcher<>(store, accessor, masks, store.storeMask(wildcard));
+    }
+
+    private static final Hash.Strategy<String> STRATEGY = new CaseInsensitiveHashStrategy();
+
+    private static class CaseInsensitiveHashStrategy implements Hash.Strategy<String> {
+
+        @Override
+        public int hashCode(String o) {
+            if (null == o) {
+                return 0;
+            }
+            int hash = 0;
+            for (int i = 0; i < o.length(); ++i) {
+                // characters are equal ignoring case when they fold to the same character
+                hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(o.charAt(i)));
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(String a, String b) {
+            if (null == a || null == b) {
+                return a == b;
+            }
+            return a.length() == b.length() && a.regionMatches(true, 0, b, 0, a.length());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+
+import java.util.HashMap;
+import java.util.function.Function;
+
+/**
+ * Accumulates string constraints which are matched against any
+ * {@link CharSequence}, hashing and comparing the characters so that
+ * mutable or pooled buffers don't need to be copied into strings.
+ *
+ * @param <Input>    the type of the classified objects
+ * @param <MaskType> the mask type
+ */
+public class CharSequenceConstraintAccumulator<Input, MaskType extends Mask<MaskType>>
+        extends GenericConstraintAccumulator<Input, CharSequence, MaskType> {
+
+    public CharSequenceConstraintAccumulator(Function<Input, CharSequence> accessor,
+                                             MaskStore<MaskType> maskStore,
+                                             int max) {
+        super(() -> new Object2IntOpenCustomHashMap<>(STRATEGY), HashMap::new, accessor, maskStore, max);
+    }
+
+    @Override
+    public Matcher<Input, MaskType> toMatcher() {
+        Object2IntMap<CharSequence> masks = computeLiteralMasks();
+        // the input does not implement hashCode and equals by content
+        return new GenericMatcher<>(store, accessor, masks, store.storeMask(wildcard));
+    }
+
+    private static final Hash.Strategy<CharSequence> STRATEGY = new CharSequenceHashStrategy();
+
+    private static class CharSequenceHashStrategy implements Hash.Strategy<CharSequence> {
+
+        @Override
+        public int hashCode(CharSequence o) {
+            if (null == o) {
+                return 0;
+            }
+            // consistent with String.hashCode
+            int hash = 0;
+            for (int i = 0; i < o.length(); ++i) {
+                hash = 31 * hash + o.charAt(i);
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(CharSequence a, CharSequence b) {
+            if (null == a || null == b) {
+                return a == b;
+            }
+            return a.length() == b.length() && CharSequence.compare(a, b) == 0;
+        }
+    }
+}
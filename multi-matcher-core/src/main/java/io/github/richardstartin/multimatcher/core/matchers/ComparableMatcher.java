@@ -6,6 +6,11 @@ import io.github.richardstartin.multimatcher.core.matchers.nodes.ComparableNode;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.Function;
 
 import static io.github.richardstartin.multimatcher.core.Utils.newArray;
@@ -19,6 +24,11 @@ public class ComparableMatcher<T, U, MaskType extends Mask<MaskType>> implements
     private final Comparator<U> comparator;
     private final MaskStore<MaskType> store;
     private ComparableNode<U, MaskType>[] children;
+    private ComparableNode<U, MaskType> segments;
+    private NavigableMap<U, Integer> notEqual;
+    // the excluded values in order, and the masks of the rules matching each of them
+    private U[] excluded;
+    private int[] excludedMasks;
 
     @SuppressWarnings("unchecked")
     public ComparableMatcher(Function<T, U> accessor,
@@ -29,26 +39,130 @@ public class ComparableMatcher<T, U, MaskType extends Mask<MaskType>> implements
         this.store = maskStore;
         this.wildcards = maskStore.newContiguousMaskId(max);
         this.children = (ComparableNode<U, MaskType>[]) newArray(ComparableNode.class, Operation.SIZE);
+        this.notEqual = new TreeMap<>(comparator);
     }
 
     @Override
     public void match(T value, MaskType context) {
-        MaskType temp = store.getTemp(wildcards);
-        U comparable = accessor.apply(value);
-        for (var component : children) {
-            store.orInto(temp, component.match(comparable));
+        store.andInto(context, lookup(accessor.apply(value)));
+    }
+
+    private int lookup(U value) {
+        if (null != excluded) {
+            int position = Arrays.binarySearch(excluded, value, comparator);
+            if (position >= 0) {
+                return excludedMasks[position];
+            }
         }
-        context.inPlaceAnd(temp);
-        temp.clear();
+        return segments.match(value);
     }
 
     @Override
     public boolean addConstraint(Constraint constraint, int priority) {
+        if (constraint.getOperation() == Operation.BETWEEN || constraint.getOperation() == Operation.IN) {
+            return addConstraints(List.of(constraint), priority);
+        }
+        if (constraint.getOperation() == Operation.NE) {
+            // the rule stays in the wildcards and is removed at the excluded value
+            addNotEqual(constraint.getValue(), priority);
+            return true;
+        }
         add(constraint.getOperation(), constraint.getValue(), priority);
         store.remove(wildcards, priority);
         return true;
     }
 
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        if (constraints.size() == 1
+                && constraints.get(0).getOperation() != Operation.BETWEEN
+                && constraints.get(0).getOperation() != Operation.IN) {
+            return addConstraint(constraints.get(0), priority);
+        }
+        // intersect the ranges so the rule can be matched with a single lookup
+        U lower = null;
+        U upper = null;
+        boolean lowerInclusive = true;
+        boolean upperInclusive = true;
+        NavigableSet<U> points = null;
+        boolean constrained = false;
+        for (var constraint : constraints) {
+            constrained |= constraint.getOperation() != Operation.NE;
+            switch (constraint.getOperation()) {
+                case BETWEEN:
+                    List<U> range = constraint.getValue();
+                    if (isHigher(range.get(0), true, lower, lowerInclusive)) {
+                        lower = range.get(0);
+                        lowerInclusive = true;
+                    }
+                    if (isLower(range.get(1), true, upper, upperInclusive)) {
+                        upper = range.get(1);
+                        upperInclusive = true;
+                    }
+                    break;
+                case EQ:
+                    U value = constraint.getValue();
+                    if (isHigher(value, true, lower, lowerInclusive)) {
+                        lower = value;
+                        lowerInclusive = true;
+                    }
+                    if (isLower(value, true, upper, upperInclusive)) {
+                        upper = value;
+                        upperInclusive = true;
+                    }
+                    break;
+                case GT:
+                case GE:
+                    U from = constraint.getValue();
+                    boolean fromInclusive = constraint.getOperation() == Operation.GE;
+                    if (isHigher(from, fromInclusive, lower, lowerInclusive)) {
+                        lower = from;
+                        lowerInclusive = fromInclusive;
+                    }
+                    break;
+                case LT:
+                case LE:
+                    U to = constraint.getValue();
+                    boolean toInclusive = constraint.getOperation() == Operation.LE;
+                    if (isLower(to, toInclusive, upper, upperInclusive)) {
+                        upper = to;
+                        upperInclusive = toInclusive;
+                    }
+                    break;
+                case IN:
+                    points = retain(points, constraint.getValue());
+                    break;
+                case NE:
+                    addNotEqual(constraint.getValue(), priority);
+                    break;
+                default:
+                    add(constraint.getOperation(), constraint.getValue(), priority);
+            }
+        }
+        if (null != points) {
+            for (U point : points) {
+                if (contains(point, lower, lowerInclusive, upper, upperInclusive)) {
+                    add(Operation.EQ, point, priority);
+                }
+            }
+        } else if (null != lower && null != upper) {
+            int order = comparator.compare(lower, upper);
+            if (order == 0 && lowerInclusive && upperInclusive) {
+                add(Operation.EQ, lower, priority);
+            } else if (order < 0) {
+                addRange(lower, lowerInclusive, upper, upperInclusive, priority);
+            }
+        } else if (null != lower) {
+            add(lowerInclusive ? Operation.GE : Operation.GT, lower, priority);
+        } else if (null != upper) {
+            add(upperInclusive ? Operation.LE : Operation.LT, upper, priority);
+        }
+        if (constrained) {
+            store.remove(wildcards, priority);
+        }
+        return true;
+    }
+
     @Override
     public Matcher<T, MaskType> toMatcher() {
         optimise();
@@ -58,12 +172,12 @@ public class ComparableMatcher<T, U, MaskType extends Mask<MaskType>> implements
 
     @Override
     public float averageSelectivity() {
-        return SelectivityHeuristics.avgCardinality(children, ComparableNode::averageSelectivity);
+        return (float) segments.averageSelectivity();
     }
 
     @Override
     public String toString() {
-        return Arrays.toString(children) + ", *: " + wildcards;
+        return segments + ", *: " + wildcards;
     }
 
     private void add(Operation relation, U threshold, int priority) {
@@ -75,6 +189,63 @@ public class ComparableMatcher<T, U, MaskType extends Mask<MaskType>> implements
         existing.add(threshold, priority);
     }
 
+    private void addRange(U from, boolean fromInclusive, U to, boolean toInclusive, int priority) {
+        var existing = children[Operation.BETWEEN.ordinal()];
+        if (null == existing) {
+            existing = children[Operation.BETWEEN.ordinal()]
+                    = new ComparableNode<>(store, comparator, Operation.BETWEEN);
+        }
+        existing.addRange(from, fromInclusive, to, toInclusive, priority);
+    }
+
+    private void addNotEqual(U value, int priority) {
+        int maskId = notEqual.getOrDefault(value, 0);
+        if (0 == maskId) {
+            maskId = store.newMaskId();
+            notEqual.put(value, maskId);
+        }
+        store.add(maskId, priority);
+    }
+
+    private NavigableSet<U> retain(NavigableSet<U> points, List<U> values) {
+        var set = new TreeSet<>(comparator);
+        set.addAll(values);
+        if (null != points) {
+            set.retainAll(points);
+        }
+        return set;
+    }
+
+    private boolean contains(U value, U lower, boolean lowerInclusive, U upper, boolean upperInclusive) {
+        if (null != lower) {
+            int order = comparator.compare(value, lower);
+            if (order < 0 || (order == 0 && !lowerInclusive)) {
+                return false;
+            }
+        }
+        if (null != upper) {
+            int order = comparator.compare(value, upper);
+            return order < 0 || (order == 0 && upperInclusive);
+        }
+        return true;
+    }
+
+    private boolean isHigher(U bound, boolean inclusive, U lower, boolean lowerInclusive) {
+        if (null == lower) {
+            return true;
+        }
+        int order = comparator.compare(bound, lower);
+        return order > 0 || (order == 0 && !inclusive && lowerInclusive);
+    }
+
+    private boolean isLower(U bound, boolean inclusive, U upper, boolean upperInclusive) {
+        if (null == upper) {
+            return true;
+        }
+        int order = comparator.compare(bound, upper);
+        return order < 0 || (order == 0 && !inclusive && upperInclusive);
+    }
+
     @SuppressWarnings("unchecked")
     public void optimise() {
         int nullCount = nullCount(children);
@@ -88,6 +259,26 @@ public class ComparableMatcher<T, U, MaskType extends Mask<MaskType>> implements
             }
             children = newChildren;
         }
+        // a single lookup finds the union of the wildcards and every matching threshold
+        segments = ComparableNode.merge(store, comparator, wildcards, children);
+        children = null;
+        if (!notEqual.isEmpty()) {
+            excluded = (U[]) notEqual.keySet().toArray();
+            excludedMasks = new int[excluded.length];
+            int i = 0;
+            for (int exclusions : notEqual.values()) {
+                // as in IntMatcher, the rules excluding a value are removed from the mask it would otherwise get
+                MaskType mask = store.getTemp(segments.match(excluded[i]));
+                mask.inPlaceAndNot(store.getMask(exclusions));
+                int maskId = 0;
+                if (!mask.isEmpty()) {
+                    maskId = store.storeMask(mask.clone());
+                    store.optimise(maskId);
+                }
+                excludedMasks[i++] = maskId;
+            }
+        }
+        notEqual = null;
     }
 
 }
@@ -0,0 +1,46 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Accumulates equality constraints on tuples of values, such as a country
+ * and a currency, where the values in the rules are lists with a value for
+ * each component. The components of the input are hashed together, so the
+ * tuple is matched with a single lookup rather than a lookup per component.
+ *
+ * @param <Input>    the type of the classified objects
+ * @param <MaskType> the mask type
+ */
+public class CompositeConstraintAccumulator<Input, MaskType extends Mask<MaskType>>
+        extends GenericConstraintAccumulator<Input, List<Object>, MaskType> {
+
+    private final Function<Input, ?>[] accessors;
+
+    public CompositeConstraintAccumulator(Function<Input, ?>[] accessors,
+                                          MaskStore<MaskType> maskStore,
+                                          int max) {
+        // the tuples are never materialised from the input
+        super(Object2IntOpenHashMap::new, HashMap::new, null, maskStore, max);
+        this.accessors = accessors;
+    }
+
+    @Override
+    public Matcher<Input, MaskType> toMatcher() {
+        Object2IntMap<List<Object>> masks = computeLiteralMasks();
+        for (var tuple : masks.keySet()) {
+            if (null == tuple || tuple.size() != accessors.length) {
+                throw new IllegalArgumentException("Expected a list of " + accessors.length
+                        + " values but got " + tuple);
+            }
+        }
+        return new CompositeMatcher<>(store, accessors, masks, store.storeMask(wildcard));
+    }
+}
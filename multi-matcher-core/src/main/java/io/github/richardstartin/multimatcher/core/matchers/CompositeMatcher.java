@@ -0,0 +1,99 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Looks up the masks of tuples in an open addressing hash table, where the
+ * hash of the input is combined from its components in the same way as
+ * {@link List#hashCode()}, so the components are hashed and compared as
+ * they are extracted rather than collected into a list.
+ */
+class CompositeMatcher<T, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+    private final Function<T, ?>[] accessors;
+    // the components of each slot's tuple, or null if the slot is free
+    private final Object[][] tuples;
+    private final int[] hashes;
+    private final int[] masks;
+    private final int wildcard;
+    private final MaskStore<MaskType> store;
+
+    CompositeMatcher(MaskStore<MaskType> store,
+                     Function<T, ?>[] accessors,
+                     Object2IntMap<List<Object>> masks,
+                     int wildcard) {
+        this.store = store;
+        this.accessors = accessors;
+        this.wildcard = wildcard;
+        // at most half full, so probe sequences are short
+        int capacity = Integer.highestOneBit(Math.max(1, masks.size()) * 4 - 1);
+        this.tuples = new Object[capacity][];
+        this.hashes = new int[capacity];
+        this.masks = new int[capacity];
+        for (var entry : masks.object2IntEntrySet()) {
+            var tuple = entry.getKey();
+            int hash = tuple.hashCode();
+            int slot = slot(hash);
+            while (null != tuples[slot]) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            tuples[slot] = tuple.toArray();
+            hashes[slot] = hash;
+            this.masks[slot] = entry.getIntValue();
+        }
+    }
+
+    @Override
+    public void match(T input, MaskType context) {
+        store.andInto(context, lookup(input));
+    }
+
+    @Override
+    public float averageSelectivity() {
+        int[] present = new int[masks.length];
+        int count = 0;
+        for (int i = 0; i < tuples.length; ++i) {
+            if (null != tuples[i]) {
+                present[count++] = masks[i];
+            }
+        }
+        return (float) store.averageSelectivity(Arrays.copyOf(present, count));
+    }
+
+    private int lookup(T input) {
+        int hash = 1;
+        for (var accessor : accessors) {
+            hash = 31 * hash + Objects.hashCode(accessor.apply(input));
+        }
+        int slot = slot(hash);
+        while (null != tuples[slot]) {
+            if (hashes[slot] == hash && matches(tuples[slot], input)) {
+                return masks[slot];
+            }
+            slot = (slot + 1) & (tuples.length - 1);
+        }
+        return wildcard;
+    }
+
+    private boolean matches(Object[] tuple, T input) {
+        // the accessors are applied again, which is cheaper than storing the components
+        for (int i = 0; i < accessors.length; ++i) {
+            if (!Objects.equals(tuple[i], accessors[i].apply(input))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (tuples.length - 1);
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Constraint;
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Matcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converts the values of constraints before passing them to another
+ * accumulator, so attributes can be matched by the accumulator of a type
+ * they are encoded as.
+ *
+ * @param <T>        the type of the classified objects
+ * @param <MaskType> the mask type
+ */
+public class ConvertingConstraintAccumulator<T, MaskType> implements ConstraintAccumulator<T, MaskType> {
+
+    private final ConstraintAccumulator<T, MaskType> delegate;
+    private final Function<Object, ?> conversion;
+
+    public ConvertingConstraintAccumulator(ConstraintAccumulator<T, MaskType> delegate,
+                                           Function<Object, ?> conversion) {
+        this.delegate = delegate;
+        this.conversion = conversion;
+    }
+
+    @Override
+    public boolean addConstraint(Constraint constraint, int priority) {
+        return delegate.addConstraint(constraint.convert(conversion), priority);
+    }
+
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        List<Constraint> converted = new ArrayList<>(constraints.size());
+        for (var constraint : constraints) {
+            converted.add(constraint.convert(conversion));
+        }
+        return delegate.addConstraints(converted, priority);
+    }
+
+    @Override
+    public Matcher<T, MaskType> toMatcher() {
+        return delegate.toMatcher();
+    }
+}
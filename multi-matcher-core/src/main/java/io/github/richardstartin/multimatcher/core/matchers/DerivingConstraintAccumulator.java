@@ -0,0 +1,71 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Constraint;
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.MatchContext;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.schema.Derived;
+
+import java.util.List;
+
+/**
+ * Passes constraints to the accumulator of an attribute of a derived value,
+ * and derives the value from each classified object before matching it.
+ *
+ * @param <T>        the type of the classified objects
+ * @param <D>        the type of the derived value
+ * @param <MaskType> the mask type
+ */
+public class DerivingConstraintAccumulator<T, D, MaskType> implements ConstraintAccumulator<T, MaskType> {
+
+    private final Derived<T, D> derivation;
+    private final ConstraintAccumulator<D, MaskType> delegate;
+
+    public DerivingConstraintAccumulator(Derived<T, D> derivation,
+                                         ConstraintAccumulator<D, MaskType> delegate) {
+        this.derivation = derivation;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean addConstraint(Constraint constraint, int priority) {
+        return delegate.addConstraint(constraint, priority);
+    }
+
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        return delegate.addConstraints(constraints, priority);
+    }
+
+    @Override
+    public Matcher<T, MaskType> toMatcher() {
+        return new DerivedMatcher<>(derivation, delegate.toMatcher());
+    }
+
+    private static class DerivedMatcher<T, D, MaskType> implements Matcher<T, MaskType> {
+
+        private final Derived<T, D> derivation;
+        private final Matcher<D, MaskType> delegate;
+
+        DerivedMatcher(Derived<T, D> derivation, Matcher<D, MaskType> delegate) {
+            this.derivation = derivation;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void match(T value, MaskType context) {
+            delegate.match(derivation.apply(value), context);
+        }
+
+        @Override
+        public void match(T value, MaskType context, MatchContext matchContext) {
+            // attributes of a value derived from this one need the context too
+            delegate.match(matchContext.derive(derivation, value), context, matchContext);
+        }
+
+        @Override
+        public float averageSelectivity() {
+            return delegate.averageSelectivity();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.StringDictionary;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Accumulates string constraints which are matched against the codes the
+ * dictionary assigns to the values, so the matcher indexes an array by the
+ * code of the input instead of hashing and comparing strings.
+ *
+ * @param <Input>    the type of the classified objects
+ * @param <MaskType> the mask type
+ */
+public class DictionaryConstraintAccumulator<Input, MaskType extends Mask<MaskType>>
+        extends GenericConstraintAccumulator<Input, String, MaskType> {
+
+    private final StringDictionary dictionary;
+    private final ToIntFunction<Input> codeAccessor;
+
+    public DictionaryConstraintAccumulator(StringDictionary dictionary,
+                                           ToIntFunction<Input> accessor,
+                                           MaskStore<MaskType> maskStore,
+                                           int max) {
+        // the values are only ever read as codes
+        super(Object2IntOpenHashMap::new, HashMap::new, null, maskStore, max);
+        this.dictionary = dictionary;
+        this.codeAccessor = accessor;
+    }
+
+    @Override
+    public Matcher<Input, MaskType> toMatcher() {
+        Object2IntMap<String> masks = computeLiteralMasks();
+        int wildcardId = store.storeMask(wildcard);
+        int[] codes = new int[masks.size()];
+        int maxCode = -1;
+        int i = 0;
+        for (String value : masks.keySet()) {
+            codes[i] = null == value ? StringDictionary.NOT_FOUND : dictionary.encode(value);
+            maxCode = Math.max(maxCode, codes[i++]);
+        }
+        // codes assigned later are not referred to by any rule, so match the wildcard
+        int[] table = new int[maxCode + 1];
+        Arrays.fill(table, wildcardId);
+        i = 0;
+        for (int mask : masks.values()) {
+            int code = codes[i++];
+            if (code >= 0) {
+                table[code] = mask;
+            }
+        }
+        return new DictionaryMatcher<>(store, codeAccessor, table, wildcardId);
+    }
+}
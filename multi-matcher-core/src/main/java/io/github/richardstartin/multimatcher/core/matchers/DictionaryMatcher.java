@@ -0,0 +1,39 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+
+import java.util.function.ToIntFunction;
+
+class DictionaryMatcher<T, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+    private final ToIntFunction<T> accessor;
+    private final int[] masks;
+    private final int wildcard;
+    private final MaskStore<MaskType> store;
+
+    DictionaryMatcher(MaskStore<MaskType> store,
+                      ToIntFunction<T> accessor,
+                      int[] masks,
+                      int wildcard) {
+        this.accessor = accessor;
+        this.masks = masks;
+        this.wildcard = wildcard;
+        this.store = store;
+    }
+
+    @Override
+    public void match(T input, MaskType context) {
+        int code = accessor.applyAsInt(input);
+        // unsigned comparison also sends negative codes to the wildcard
+        int mask = Integer.compareUnsigned(code, masks.length) < 0 ? masks[code] : wildcard;
+        store.andInto(context, mask);
+    }
+
+    @Override
+    public float averageSelectivity() {
+        return (float)store.averageSelectivity(masks);
+    }
+
+}
@@ -4,19 +4,31 @@ import io.github.richardstartin.multimatcher.core.*;
 import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 import io.github.richardstartin.multimatcher.core.matchers.nodes.DoubleNode;
 
+import it.unimi.dsi.fastutil.doubles.Double2IntOpenHashMap;
+import it.unimi.dsi.fastutil.doubles.DoubleOpenHashSet;
+import it.unimi.dsi.fastutil.doubles.DoubleSet;
+
+import java.util.List;
 import java.util.function.ToDoubleFunction;
 
 import static io.github.richardstartin.multimatcher.core.Utils.newArray;
 import static io.github.richardstartin.multimatcher.core.Utils.nullCount;
-import static io.github.richardstartin.multimatcher.core.matchers.SelectivityHeuristics.avgCardinality;
 
 public class DoubleMatcher<T, MaskType extends Mask<MaskType>> implements ConstraintAccumulator<T, MaskType>,
         Matcher<T, MaskType> {
 
+    // the least and greatest encodings of doubles, and the encoding of positive infinity
+    private static final long MIN = DoubleNode.encode(Double.NEGATIVE_INFINITY);
+    private static final long MAX = DoubleNode.encode(Double.NaN);
+    private static final long POSITIVE_INFINITY = DoubleNode.encode(Double.POSITIVE_INFINITY);
+
     private final ToDoubleFunction<T> accessor;
     private final MaskStore<MaskType> store;
     private final int wildcards;
     private DoubleNode<MaskType>[] children;
+    private DoubleNode<MaskType> segments;
+    private Double2IntOpenHashMap notEqual = new Double2IntOpenHashMap();
+    private Double2IntOpenHashMap pointMasks;
 
     @SuppressWarnings("unchecked")
     public DoubleMatcher(ToDoubleFunction<T> accessor, MaskStore<MaskType> maskStore, int max) {
@@ -28,16 +40,31 @@ public class DoubleMatcher<T, MaskType extends Mask<MaskType>> implements Constr
 
     @Override
     public void match(T value, MaskType context) {
-        MaskType temp = store.getTemp(wildcards);
-        double attributeValue = accessor.applyAsDouble(value);
-        for (var component : children) {
-            store.orInto(temp, component.match(attributeValue, 0));
+        store.andInto(context, lookup(accessor.applyAsDouble(value)));
+    }
+
+    private int lookup(double value) {
+        if (null != pointMasks) {
+            int mask = pointMasks.get(value);
+            if (mask >= 0) {
+                return mask;
+            }
         }
-        context.inPlaceAnd(temp);
+        return segments.match(value, 0);
     }
 
     @Override
     public boolean addConstraint(Constraint constraint, int priority) {
+        switch (constraint.getOperation()) {
+            case BETWEEN:
+            case IN:
+                return addConstraints(List.of(constraint), priority);
+            case NE:
+                // the rule stays in the wildcards and is removed at the excluded value
+                addNotEqual(constraint.<Number>getValue().doubleValue(), priority);
+                return true;
+            default:
+        }
         Number number = constraint.getValue();
         double value = number.doubleValue();
         add(constraint.getOperation(), value, priority);
@@ -45,6 +72,93 @@ public class DoubleMatcher<T, MaskType extends Mask<MaskType>> implements Constr
         return true;
     }
 
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        if (constraints.size() == 1
+                && constraints.get(0).getOperation() != Operation.BETWEEN
+                && constraints.get(0).getOperation() != Operation.IN) {
+            return addConstraint(constraints.get(0), priority);
+        }
+        // intersect the ranges so the rule can be matched with a single lookup, the
+        // bounds are encoded so they are compared in the order of the nodes, where
+        // -0.0 precedes 0.0 and NaN follows positive infinity
+        long lower = MIN;
+        long upper = MAX;
+        boolean hasLower = false;
+        boolean hasUpper = false;
+        boolean constrained = false;
+        DoubleSet points = null;
+        for (var constraint : constraints) {
+            switch (constraint.getOperation()) {
+                case BETWEEN:
+                    List<Number> range = constraint.getValue();
+                    lower = Math.max(lower, DoubleNode.encode(range.get(0).doubleValue()));
+                    upper = Math.min(upper, DoubleNode.encode(range.get(1).doubleValue()));
+                    hasLower = hasUpper = true;
+                    break;
+                case GT:
+                    lower = Math.max(lower, DoubleNode.encode(constraint.<Number>getValue().doubleValue()) + 1);
+                    hasLower = true;
+                    break;
+                case GE:
+                    lower = Math.max(lower, DoubleNode.encode(constraint.<Number>getValue().doubleValue()));
+                    hasLower = true;
+                    break;
+                case LT:
+                    upper = Math.min(upper, DoubleNode.encode(constraint.<Number>getValue().doubleValue()) - 1);
+                    hasUpper = true;
+                    break;
+                case LE:
+                    upper = Math.min(upper, DoubleNode.encode(constraint.<Number>getValue().doubleValue()));
+                    hasUpper = true;
+                    break;
+                case EQ:
+                    points = retain(points, toSet(List.of(constraint.<Number>getValue())));
+                    break;
+                case IN:
+                    points = retain(points, toSet(constraint.getValue()));
+                    break;
+                case NE:
+                    addNotEqual(constraint.<Number>getValue().doubleValue(), priority);
+                    break;
+                default:
+                    add(constraint.getOperation(), constraint.<Number>getValue().doubleValue(), priority);
+                    constrained = true;
+            }
+        }
+        // the encodings between positive infinity and NaN decode to NaNs other than the canonical NaN
+        if (lower > POSITIVE_INFINITY && lower < MAX) {
+            lower = MAX;
+        }
+        if (upper > POSITIVE_INFINITY && upper < MAX) {
+            upper = POSITIVE_INFINITY;
+        }
+        if (null != points) {
+            var it = points.iterator();
+            while (it.hasNext()) {
+                double point = it.nextDouble();
+                long encoded = DoubleNode.encode(point);
+                if (encoded >= lower && encoded <= upper) {
+                    add(Operation.EQ, point, priority);
+                }
+            }
+        } else if (lower <= upper) {
+            if (lower == upper) {
+                add(Operation.EQ, DoubleNode.decode(lower), priority);
+            } else if (hasLower && hasUpper) {
+                addRange(DoubleNode.decode(lower), DoubleNode.decode(upper), priority);
+            } else if (hasLower) {
+                add(Operation.GE, DoubleNode.decode(lower), priority);
+            } else if (hasUpper) {
+                add(Operation.LE, DoubleNode.decode(upper), priority);
+            }
+        }
+        if (null != points || hasLower || hasUpper || constrained) {
+            store.remove(wildcards, priority);
+        }
+        return true;
+    }
+
     @Override
     public Matcher<T, MaskType> toMatcher() {
         optimise();
@@ -61,6 +175,40 @@ public class DoubleMatcher<T, MaskType extends Mask<MaskType>> implements Constr
         existing.add(threshold, priority);
     }
 
+    private void addNotEqual(double value, int priority) {
+        int maskId = notEqual.get(value);
+        if (0 == maskId) {
+            maskId = store.newMaskId();
+            notEqual.put(value, maskId);
+        }
+        store.add(maskId, priority);
+    }
+
+    private static DoubleSet toSet(List<Number> values) {
+        var set = new DoubleOpenHashSet(values.size());
+        for (Number value : values) {
+            set.add(value.doubleValue());
+        }
+        return set;
+    }
+
+    private static DoubleSet retain(DoubleSet points, DoubleSet values) {
+        if (null == points) {
+            return values;
+        }
+        points.retainAll(values);
+        return points;
+    }
+
+    private void addRange(double from, double to, int priority) {
+        var existing = children[Operation.BETWEEN.ordinal()];
+        if (null == existing) {
+            existing = children[Operation.BETWEEN.ordinal()]
+                    = new DoubleNode<>(store, Operation.BETWEEN);
+        }
+        existing.addRange(from, to, priority);
+    }
+
     @SuppressWarnings("unchecked")
     private void optimise() {
         int nullCount = nullCount(children);
@@ -74,11 +222,32 @@ public class DoubleMatcher<T, MaskType extends Mask<MaskType>> implements Constr
             }
             children = newChildren;
         }
+        // a single lookup finds the union of the wildcards and every matching threshold
+        segments = DoubleNode.merge(store, wildcards, children);
+        children = null;
+        if (!notEqual.isEmpty()) {
+            // as in GenericConstraintAccumulator, rules excluding a value are in the wildcards,
+            // so the mask for each excluded value is its segment's mask without those rules
+            pointMasks = new Double2IntOpenHashMap(notEqual.size());
+            pointMasks.defaultReturnValue(-1);
+            for (var exclusion : notEqual.double2IntEntrySet()) {
+                double value = exclusion.getDoubleKey();
+                MaskType mask = store.getTemp(segments.match(value, 0));
+                mask.inPlaceAndNot(store.getMask(exclusion.getIntValue()));
+                int maskId = 0;
+                if (!mask.isEmpty()) {
+                    maskId = store.storeMask(mask.clone());
+                    store.optimise(maskId);
+                }
+                pointMasks.put(value, maskId);
+            }
+        }
+        notEqual = null;
     }
 
     @Override
     public float averageSelectivity() {
-        return avgCardinality(children, DoubleNode::averageSelectivity);
+        return (float) segments.averageSelectivity();
     }
 
 }
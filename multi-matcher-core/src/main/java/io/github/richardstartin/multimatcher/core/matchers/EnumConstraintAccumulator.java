@@ -0,0 +1,57 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.function.Function;
+
+public class EnumConstraintAccumulator<Input, E extends Enum<E>, MaskType extends Mask<MaskType>>
+        extends GenericConstraintAccumulator<Input, E, MaskType> {
+
+    private final Class<E> type;
+
+    @SuppressWarnings("unchecked")
+    public EnumConstraintAccumulator(Class<E> type,
+                                     Function<Input, E> accessor,
+                                     MaskStore<MaskType> maskStore,
+                                     int max) {
+        super(() -> new Object2IntOpenCustomHashMap<>(type.getEnumConstants().length,
+                        1f, (Hash.Strategy<E>) STRATEGY),
+                () -> new EnumMap<>(type), accessor, maskStore, max);
+        this.type = type;
+    }
+
+    @Override
+    public Matcher<Input, MaskType> toMatcher() {
+        Object2IntMap<E> masks = computeLiteralMasks();
+        int wildcardId = store.storeMask(wildcard);
+        // ordinals without constraints match the rules which don't constrain this attribute
+        int[] table = new int[type.getEnumConstants().length];
+        Arrays.fill(table, wildcardId);
+        for (var entry : masks.object2IntEntrySet()) {
+            table[entry.getKey().ordinal()] = entry.getIntValue();
+        }
+        return new EnumMatcher<>(store, accessor, table, wildcardId);
+    }
+
+    private static final EnumHashStrategy<?> STRATEGY = new EnumHashStrategy<>();
+
+    private static class EnumHashStrategy<E extends Enum<E>> implements Hash.Strategy<E> {
+
+        @Override
+        public int hashCode(E o) {
+            return o.ordinal();
+        }
+
+        @Override
+        public boolean equals(E a, E b) {
+            return a == b;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+
+import java.util.function.Function;
+
+class EnumMatcher<T, E extends Enum<E>, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+    private final Function<T, E> accessor;
+    private final int[] masks;
+    private final int wildcard;
+    private final MaskStore<MaskType> store;
+
+    EnumMatcher(MaskStore<MaskType> store,
+                Function<T, E> accessor,
+                int[] masks,
+                int wildcard) {
+        this.accessor = accessor;
+        this.masks = masks;
+        this.wildcard = wildcard;
+        this.store = store;
+    }
+
+    @Override
+    public void match(T input, MaskType context) {
+        E value = accessor.apply(input);
+        int mask = null == value ? wildcard : masks[value.ordinal()];
+        store.andInto(context, mask);
+    }
+
+    @Override
+    public float averageSelectivity() {
+        return (float)store.averageSelectivity(masks);
+    }
+
+}
@@ -4,11 +4,12 @@ import io.github.richardstartin.multimatcher.core.*;
 import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 
-import java.util.Map;
+import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static io.github.richardstartin.multimatcher.core.Operation.EQ;
+import static io.github.richardstartin.multimatcher.core.Operation.IN;
 import static io.github.richardstartin.multimatcher.core.Operation.NE;
 
 public class GenericConstraintAccumulator<T, U, MaskType extends Mask<MaskType>>
@@ -16,19 +17,42 @@ public class GenericConstraintAccumulator<T, U, MaskType extends Mask<MaskType>>
 
     protected final Function<T, U> accessor;
     protected final Supplier<Object2IntMap<U>> mapSupplier;
+    protected final Supplier<Map<U, MaskType>> maskMapSupplier;
     protected final Map<U, MaskType> equality;
     protected final Map<U, MaskType> inequality;
     protected final int max;
     protected final MaskStore<MaskType> store;
     protected final MaskType wildcard;
+    protected final boolean sparse;
 
     public GenericConstraintAccumulator(Supplier<Object2IntMap<U>> primitiveMapSupplier,
                                         Supplier<Map<U, MaskType>> mapSupplier,
                                         Function<T, U> accessor,
                                         MaskStore<MaskType> store,
                                         int max) {
+        this(primitiveMapSupplier, mapSupplier, accessor, store, max, false);
+    }
+
+    /**
+     * @param primitiveMapSupplier creates the map from values to mask ids
+     * @param mapSupplier          creates the maps from values to masks
+     * @param accessor             extracts the value from the input
+     * @param store                the mask store
+     * @param max                  the number of rules
+     * @param sparse               whether most inputs are expected to match none
+     *                             of the values, so absent values should be
+     *                             rejected by a Bloom filter before the lookup
+     */
+    public GenericConstraintAccumulator(Supplier<Object2IntMap<U>> primitiveMapSupplier,
+                                        Supplier<Map<U, MaskType>> mapSupplier,
+                                        Function<T, U> accessor,
+                                        MaskStore<MaskType> store,
+                                        int max,
+                                        boolean sparse) {
+        this.sparse = sparse;
         this.accessor = accessor;
         this.mapSupplier = primitiveMapSupplier;
+        this.maskMapSupplier = mapSupplier;
         this.store = store;
         this.max = max;
         this.wildcard = store.contiguous(max);
@@ -38,18 +62,61 @@ public class GenericConstraintAccumulator<T, U, MaskType extends Mask<MaskType>>
 
     @Override
     public boolean addConstraint(Constraint constraint, int priority) {
-        U key = constraint.getValue();
         if (constraint.getOperation() == EQ) {
-            update(equality, key, priority);
+            update(equality, constraint.getValue(), priority);
+            wildcard.remove(priority);
+        } else if (constraint.getOperation() == IN) {
+            for (U key : constraint.<List<U>>getValue()) {
+                update(equality, key, priority);
+            }
             wildcard.remove(priority);
         } else if (constraint.getOperation() == NE) {
-            update(inequality, key, priority);
+            update(inequality, constraint.getValue(), priority);
         } else {
             return false;
         }
         return true;
     }
 
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        // the rule is satisfied by the values permitted by every equality and membership constraint,
+        // using maps from the supplier so values are compared the same way as in the masks
+        Map<U, MaskType> permitted = null;
+        for (var constraint : constraints) {
+            if (constraint.getOperation() == EQ || constraint.getOperation() == IN) {
+                Collection<U> values = constraint.getOperation() == EQ
+                        ? Collections.singleton(constraint.getValue())
+                        : constraint.getValue();
+                Map<U, MaskType> next = maskMapSupplier.get();
+                for (U value : values) {
+                    next.put(value, null);
+                }
+                if (null == permitted) {
+                    permitted = next;
+                } else {
+                    permitted.keySet().removeIf(value -> !next.containsKey(value));
+                }
+            }
+        }
+        if (null == permitted) {
+            return ConstraintAccumulator.super.addConstraints(constraints, priority);
+        }
+        // the excluded values are removed here, because only rules without an equality
+        // constraint can be complemented into the masks of the other values
+        for (var constraint : constraints) {
+            if (constraint.getOperation() == NE) {
+                permitted.remove(constraint.<U>getValue());
+            }
+        }
+        for (U key : permitted.keySet()) {
+            update(equality, key, priority);
+        }
+        // can never match if no value is permitted
+        wildcard.remove(priority);
+        return true;
+    }
+
     private void update(Map<U, MaskType> map, U key, int priority) {
         var mask = map.get(key);
         if (null == mask) {
@@ -62,7 +129,28 @@ public class GenericConstraintAccumulator<T, U, MaskType extends Mask<MaskType>>
     @Override
     public Matcher<T, MaskType> toMatcher() {
         var masks = computeLiteralMasks();
-        return new GenericMatcher<>(store, accessor, masks, store.storeMask(wildcard));
+        return newMatcher(accessor, masks, store.storeMask(wildcard));
+    }
+
+    /**
+     * Chooses how to look up the mask of a value, which requires the values
+     * to implement hashCode and equals consistently.
+     *
+     * @param accessor   extracts the value from the input
+     * @param masks      the mask id of each value
+     * @param wildcardId the mask id of values without a mask
+     * @param <V>        the type of the values
+     * @return a matcher
+     */
+    protected <V> Matcher<T, MaskType> newMatcher(Function<T, V> accessor, Object2IntMap<V> masks, int wildcardId) {
+        var filter = sparse ? BlockedBloomFilter.of(masks.keySet()) : null;
+        if (masks.size() >= PerfectHashMatcher.MIN_SIZE) {
+            var matcher = PerfectHashMatcher.build(store, accessor, masks, wildcardId, filter);
+            if (null != matcher) {
+                return matcher;
+            }
+        }
+        return new GenericMatcher<>(store, accessor, masks, wildcardId, filter);
     }
 
     protected Object2IntMap<U> computeLiteralMasks() {
@@ -85,16 +173,14 @@ public class GenericConstraintAccumulator<T, U, MaskType extends Mask<MaskType>>
         var it = inequality.entrySet().iterator();
         while (it.hasNext()) {
             var ineq = it.next();
-            boolean hasCounterpart = false;
-            for (var eq : equality.entrySet()) {
-                if (!eq.getKey().equals(ineq.getKey())) {
-                    eq.getValue().inPlaceOr(ineq.getValue());
-                } else {
-                    hasCounterpart = true;
-                    eq.getValue().inPlaceAndNot(ineq.getValue());
+            var counterpart = equality.get(ineq.getKey());
+            for (var eq : equality.values()) {
+                if (eq != counterpart) {
+                    eq.inPlaceOr(ineq.getValue());
                 }
             }
-            if (hasCounterpart) {
+            if (null != counterpart) {
+                counterpart.inPlaceAndNot(ineq.getValue());
                 // use the equality mask instead
                 it.remove();
             } else {
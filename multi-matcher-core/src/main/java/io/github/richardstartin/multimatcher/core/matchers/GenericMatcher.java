@@ -13,22 +13,34 @@ class GenericMatcher<T, U, MaskType extends Mask<MaskType>> implements Matcher<T
     private final Object2IntMap<U> masks;
     private final int wildcard;
     private final MaskStore<MaskType> store;
+    private final BlockedBloomFilter filter;
 
     GenericMatcher(MaskStore<MaskType> store,
                    Function<T, U> accessor,
                    Object2IntMap<U> masks,
                    int wildcard) {
+        this(store, accessor, masks, wildcard, null);
+    }
+
+    /**
+     * @param filter rejects values which are definitely absent before probing
+     *               the masks, or null if most values are expected to be present
+     */
+    GenericMatcher(MaskStore<MaskType> store,
+                   Function<T, U> accessor,
+                   Object2IntMap<U> masks,
+                   int wildcard,
+                   BlockedBloomFilter filter) {
         this.accessor = accessor;
         this.masks = masks;
         this.wildcard = wildcard;
         this.store = store;
+        this.filter = filter;
     }
 
     @Override
     public void match(T input, MaskType context) {
-        U value = accessor.apply(input);
-        int mask = masks.getOrDefault(value, wildcard);
-        store.andInto(context, mask);
+        store.andInto(context, lookup(accessor.apply(input)));
     }
 
     @Override
@@ -36,4 +48,11 @@ class GenericMatcher<T, U, MaskType extends Mask<MaskType>> implements Matcher<T
         return (float)store.averageSelectivity(masks.values().toIntArray());
     }
 
+    int lookup(U value) {
+        if (null != filter && null != value && !filter.mightContain(value.hashCode())) {
+            return wildcard;
+        }
+        return masks.getOrDefault(value, wildcard);
+    }
+
 }
@@ -0,0 +1,159 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Constraint;
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import static io.github.richardstartin.multimatcher.core.Operation.WITHIN;
+
+/**
+ * Accumulates bounding box constraints on points, which are matched with a
+ * uniform grid over the extent of the boxes. Each cell has the mask of the
+ * rules whose boxes cover the whole cell, and lists the boxes which only
+ * cover part of it, so only those need to be tested against the point.
+ *
+ * @param <T>        the type of the classified objects
+ * @param <MaskType> the mask type
+ */
+public class GeoConstraintAccumulator<T, MaskType extends Mask<MaskType>>
+        implements ConstraintAccumulator<T, MaskType> {
+
+    /**
+     * The most cells along each axis, which bounds the size of the grid.
+     */
+    static final int MAX_CELLS = 64;
+
+    private final ToDoubleFunction<T> latitude;
+    private final ToDoubleFunction<T> longitude;
+    private final MaskStore<MaskType> store;
+    private final MaskType wildcard;
+    // the boxes as minimum latitude, minimum longitude, maximum latitude, maximum longitude
+    private final DoubleArrayList boxes = new DoubleArrayList();
+    private final IntArrayList priorities = new IntArrayList();
+
+    public GeoConstraintAccumulator(ToDoubleFunction<T> latitude,
+                                    ToDoubleFunction<T> longitude,
+                                    MaskStore<MaskType> store,
+                                    int max) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.store = store;
+        this.wildcard = store.contiguous(max);
+    }
+
+    @Override
+    public boolean addConstraint(Constraint constraint, int priority) {
+        return addConstraints(List.of(constraint), priority);
+    }
+
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        // a point must be in every box, so the rule is the intersection of the boxes
+        double minLatitude = Double.NEGATIVE_INFINITY;
+        double minLongitude = Double.NEGATIVE_INFINITY;
+        double maxLatitude = Double.POSITIVE_INFINITY;
+        double maxLongitude = Double.POSITIVE_INFINITY;
+        boolean added = false;
+        for (var constraint : constraints) {
+            if (constraint.getOperation() != WITHIN) {
+                continue;
+            }
+            List<Number> box = constraint.getValue();
+            if (box.get(0).doubleValue() > box.get(2).doubleValue()
+                    || box.get(1).doubleValue() > box.get(3).doubleValue()) {
+                throw new IllegalArgumentException("Empty or antimeridian crossing box " + box);
+            }
+            minLatitude = Math.max(minLatitude, box.get(0).doubleValue());
+            minLongitude = Math.max(minLongitude, box.get(1).doubleValue());
+            maxLatitude = Math.min(maxLatitude, box.get(2).doubleValue());
+            maxLongitude = Math.min(maxLongitude, box.get(3).doubleValue());
+            added = true;
+        }
+        if (added) {
+            wildcard.remove(priority);
+            if (minLatitude <= maxLatitude && minLongitude <= maxLongitude) {
+                boxes.add(minLatitude);
+                boxes.add(minLongitude);
+                boxes.add(maxLatitude);
+                boxes.add(maxLongitude);
+                priorities.add(priority);
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public Matcher<T, MaskType> toMatcher() {
+        int wildcardId = store.storeMask(wildcard);
+        int count = priorities.size();
+        if (count == 0) {
+            return new GeoMatcher<>(store, latitude, longitude, wildcardId);
+        }
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; ++i) {
+            minLatitude = Math.min(minLatitude, boxes.getDouble(4 * i));
+            minLongitude = Math.min(minLongitude, boxes.getDouble(4 * i + 1));
+            maxLatitude = Math.max(maxLatitude, boxes.getDouble(4 * i + 2));
+            maxLongitude = Math.max(maxLongitude, boxes.getDouble(4 * i + 3));
+        }
+        // about four boxes per cell when they are small and spread out evenly
+        int cells = Math.max(1, Math.min(MAX_CELLS, (int) Math.ceil(Math.sqrt(count) / 2)));
+        double latitudeScale = cells / Math.max(maxLatitude - minLatitude, Double.MIN_NORMAL);
+        double longitudeScale = cells / Math.max(maxLongitude - minLongitude, Double.MIN_NORMAL);
+        int[] cellMasks = new int[cells * cells];
+        int[] partialOffsets = new int[cells * cells + 1];
+        var partialBoxes = new DoubleArrayList();
+        var partialPriorities = new IntArrayList();
+        var distinct = new HashMap<MaskType, Integer>();
+        for (int row = 0; row < cells; ++row) {
+            // widen the cell slightly, so points rounded into it are also covered
+            double cellHeight = 1 / latitudeScale;
+            double south = minLatitude + row * cellHeight - cellHeight * 1e-6;
+            double north = minLatitude + (row + 1) * cellHeight + cellHeight * 1e-6;
+            for (int column = 0; column < cells; ++column) {
+                double cellWidth = 1 / longitudeScale;
+                double west = minLongitude + column * cellWidth - cellWidth * 1e-6;
+                double east = minLongitude + (column + 1) * cellWidth + cellWidth * 1e-6;
+                int cell = row * cells + column;
+                MaskType mask = wildcard.clone();
+                for (int i = 0; i < count; ++i) {
+                    double boxSouth = boxes.getDouble(4 * i);
+                    double boxWest = boxes.getDouble(4 * i + 1);
+                    double boxNorth = boxes.getDouble(4 * i + 2);
+                    double boxEast = boxes.getDouble(4 * i + 3);
+                    if (boxSouth <= south && boxWest <= west && boxNorth >= north && boxEast >= east) {
+                        mask.add(priorities.getInt(i));
+                    } else if (boxSouth <= north && boxWest <= east && boxNorth >= south && boxEast >= west) {
+                        partialBoxes.add(boxSouth);
+                        partialBoxes.add(boxWest);
+                        partialBoxes.add(boxNorth);
+                        partialBoxes.add(boxEast);
+                        partialPriorities.add(priorities.getInt(i));
+                    }
+                }
+                partialOffsets[cell + 1] = partialPriorities.size();
+                if (mask.isEmpty()) {
+                    cellMasks[cell] = 0;
+                } else {
+                    mask.optimise();
+                    cellMasks[cell] = distinct.computeIfAbsent(mask, store::storeMask);
+                }
+            }
+        }
+        return new GeoMatcher<>(store, latitude, longitude, wildcardId,
+                minLatitude, minLongitude, maxLatitude, maxLongitude,
+                latitudeScale, longitudeScale, cells,
+                cellMasks, partialOffsets, partialBoxes.toDoubleArray(), partialPriorities.toIntArray());
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+
+import java.util.function.ToDoubleFunction;
+
+class GeoMatcher<T, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+    private final ToDoubleFunction<T> latitude;
+    private final ToDoubleFunction<T> longitude;
+    private final MaskStore<MaskType> store;
+    private final int wildcard;
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLatitude;
+    private final double maxLongitude;
+    private final double latitudeScale;
+    private final double longitudeScale;
+    private final int cells;
+    private final int[] cellMasks;
+    private final int[] partialOffsets;
+    private final double[] partialBoxes;
+    private final int[] partialPriorities;
+
+    GeoMatcher(MaskStore<MaskType> store,
+               ToDoubleFunction<T> latitude,
+               ToDoubleFunction<T> longitude,
+               int wildcard) {
+        this(store, latitude, longitude, wildcard, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                0, 0, 0, new int[0], new int[1], new double[0], new int[0]);
+    }
+
+    GeoMatcher(MaskStore<MaskType> store,
+               ToDoubleFunction<T> latitude,
+               ToDoubleFunction<T> longitude,
+               int wildcard,
+               double minLatitude,
+               double minLongitude,
+               double maxLatitude,
+               double maxLongitude,
+               double latitudeScale,
+               double longitudeScale,
+               int cells,
+               int[] cellMasks,
+               int[] partialOffsets,
+               double[] partialBoxes,
+               int[] partialPriorities) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.store = store;
+        this.wildcard = wildcard;
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+        this.latitudeScale = latitudeScale;
+        this.longitudeScale = longitudeScale;
+        this.cells = cells;
+        this.cellMasks = cellMasks;
+        this.partialOffsets = partialOffsets;
+        this.partialBoxes = partialBoxes;
+        this.partialPriorities = partialPriorities;
+    }
+
+    @Override
+    public void match(T input, MaskType context) {
+        double lat = latitude.applyAsDouble(input);
+        double lon = longitude.applyAsDouble(input);
+        // also true for NaN, and when there are no boxes
+        if (!(lat >= minLatitude && lat <= maxLatitude && lon >= minLongitude && lon <= maxLongitude)) {
+            store.andInto(context, wildcard);
+            return;
+        }
+        int row = Math.min(cells - 1, (int) ((lat - minLatitude) * latitudeScale));
+        int column = Math.min(cells - 1, (int) ((lon - minLongitude) * longitudeScale));
+        int cell = row * cells + column;
+        int start = partialOffsets[cell];
+        int end = partialOffsets[cell + 1];
+        if (start == end) {
+            store.andInto(context, cellMasks[cell]);
+            return;
+        }
+        MaskType mask = store.getTemp(cellMasks[cell]);
+        for (int i = start; i < end; ++i) {
+            if (lat >= partialBoxes[4 * i] && lon >= partialBoxes[4 * i + 1]
+                    && lat <= partialBoxes[4 * i + 2] && lon <= partialBoxes[4 * i + 3]) {
+                mask.add(partialPriorities[i]);
+            }
+        }
+        context.inPlaceAnd(mask);
+    }
+
+    @Override
+    public float averageSelectivity() {
+        return (float)store.averageSelectivity(cellMasks.length == 0 ? new int[]{wildcard} : cellMasks);
+    }
+
+}
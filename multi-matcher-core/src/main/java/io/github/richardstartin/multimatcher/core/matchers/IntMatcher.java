@@ -3,23 +3,61 @@ package io.github.richardstartin.multimatcher.core.matchers;
 import io.github.richardstartin.multimatcher.core.*;
 import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 import io.github.richardstartin.multimatcher.core.matchers.nodes.IntNode;
+import io.github.richardstartin.multimatcher.core.matchers.nodes.ShortNode;
 
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
+import java.util.List;
 import java.util.function.ToIntFunction;
 
 import static io.github.richardstartin.multimatcher.core.Utils.newArray;
 import static io.github.richardstartin.multimatcher.core.Utils.nullCount;
-import static io.github.richardstartin.multimatcher.core.matchers.SelectivityHeuristics.avgCardinality;
 
 public class IntMatcher<T, MaskType extends Mask<MaskType>> implements ConstraintAccumulator<T, MaskType>,
         Matcher<T, MaskType> {
 
+    /**
+     * The number of equality constraints above which the values are
+     * looked up in a hash table instead of being searched.
+     */
+    private static final int MIN_INDEXED_VALUES = 1 << 10;
+
+    /**
+     * Attributes with at most this many possible values have the mask of
+     * every value precomputed, because the table fits in a few cache lines.
+     */
+    private static final int MAX_DOMAIN_SIZE = 1 << 8;
+
     private final ToIntFunction<T> accessor;
     private final int wildcards;
     private final MaskStore<MaskType> store;
+    private final int minValue;
+    private final int maxValue;
     private IntNode<MaskType>[] children;
+    private IntNode<MaskType> segments;
+    // the segments with short thresholds, when the attribute has few enough values
+    private ShortNode<MaskType> narrowSegments;
+    private Int2IntOpenHashMap notEqual = new Int2IntOpenHashMap();
+    private Int2IntOpenHashMap pointMasks;
+    private int[] domain;
 
-    @SuppressWarnings("unchecked")
     public IntMatcher(ToIntFunction<T> accessor, MaskStore<MaskType> maskStore, int max) {
+        this(accessor, maskStore, max, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param accessor  extracts the value from the input
+     * @param maskStore the mask store
+     * @param max       the number of rules
+     * @param minValue  the least value the accessor can produce
+     * @param maxValue  the greatest value the accessor can produce
+     */
+    @SuppressWarnings("unchecked")
+    public IntMatcher(ToIntFunction<T> accessor, MaskStore<MaskType> maskStore, int max, int minValue, int maxValue) {
+        this.minValue = minValue;
+        this.maxValue = maxValue;
         this.accessor = accessor;
         this.store = maskStore;
         this.wildcards = maskStore.newContiguousMaskId(max);
@@ -28,16 +66,32 @@ public class IntMatcher<T, MaskType extends Mask<MaskType>> implements Constrain
 
     @Override
     public void match(T value, MaskType context) {
-        MaskType temp = store.getTemp(wildcards);
-        int i = accessor.applyAsInt(value);
-        for (var component : children) {
-            store.orInto(temp, component.match(i, 0));
+        int v = accessor.applyAsInt(value);
+        store.andInto(context, null != domain ? domain[v - minValue] : lookup(v));
+    }
+
+    private int lookup(int value) {
+        if (null != pointMasks) {
+            int mask = pointMasks.get(value);
+            if (mask >= 0) {
+                return mask;
+            }
         }
-        context.inPlaceAnd(temp);
+        return null != narrowSegments ? narrowSegments.match(value) : segments.match(value, 0);
     }
 
     @Override
     public boolean addConstraint(Constraint constraint, int priority) {
+        switch (constraint.getOperation()) {
+            case BETWEEN:
+            case IN:
+                return addConstraints(List.of(constraint), priority);
+            case NE:
+                // the rule stays in the wildcards and is removed at the excluded value
+                addNotEqual(constraint.<Number>getValue().intValue(), priority);
+                return true;
+            default:
+        }
         Number number = constraint.getValue();
         int value = number.intValue();
         add(constraint.getOperation(), value, priority);
@@ -45,6 +99,83 @@ public class IntMatcher<T, MaskType extends Mask<MaskType>> implements Constrain
         return true;
     }
 
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        if (constraints.size() == 1
+                && constraints.get(0).getOperation() != Operation.BETWEEN
+                && constraints.get(0).getOperation() != Operation.IN) {
+            return addConstraint(constraints.get(0), priority);
+        }
+        // intersect the ranges so the rule can be matched with a single lookup
+        long lower = Integer.MIN_VALUE;
+        long upper = Integer.MAX_VALUE;
+        boolean hasLower = false;
+        boolean hasUpper = false;
+        boolean constrained = false;
+        IntSet points = null;
+        for (var constraint : constraints) {
+            switch (constraint.getOperation()) {
+                case BETWEEN:
+                    List<Number> range = constraint.getValue();
+                    lower = Math.max(lower, range.get(0).intValue());
+                    upper = Math.min(upper, range.get(1).intValue());
+                    hasLower = hasUpper = true;
+                    break;
+                case GT:
+                    lower = Math.max(lower, constraint.<Number>getValue().intValue() + 1L);
+                    hasLower = true;
+                    break;
+                case GE:
+                    lower = Math.max(lower, constraint.<Number>getValue().intValue());
+                    hasLower = true;
+                    break;
+                case LT:
+                    upper = Math.min(upper, constraint.<Number>getValue().intValue() - 1L);
+                    hasUpper = true;
+                    break;
+                case LE:
+                    upper = Math.min(upper, constraint.<Number>getValue().intValue());
+                    hasUpper = true;
+                    break;
+                case EQ:
+                    points = retain(points, toSet(List.of(constraint.<Number>getValue())));
+                    break;
+                case IN:
+                    points = retain(points, toSet(constraint.getValue()));
+                    break;
+                case NE:
+                    addNotEqual(constraint.<Number>getValue().intValue(), priority);
+                    break;
+                default:
+                    add(constraint.getOperation(), constraint.<Number>getValue().intValue(), priority);
+                    constrained = true;
+            }
+        }
+        if (null != points) {
+            var it = points.iterator();
+            while (it.hasNext()) {
+                int point = it.nextInt();
+                if ((!hasLower || point >= lower) && (!hasUpper || point <= upper)) {
+                    add(Operation.EQ, point, priority);
+                }
+            }
+        } else if (lower <= upper) {
+            if (lower == upper) {
+                add(Operation.EQ, (int) lower, priority);
+            } else if (hasLower && hasUpper) {
+                addRange((int) lower, (int) upper, priority);
+            } else if (hasLower) {
+                add(Operation.GE, (int) lower, priority);
+            } else if (hasUpper) {
+                add(Operation.LE, (int) upper, priority);
+            }
+        }
+        if (null != points || hasLower || hasUpper || constrained) {
+            store.remove(wildcards, priority);
+        }
+        return true;
+    }
+
     @Override
     public Matcher<T, MaskType> toMatcher() {
         optimise();
@@ -53,7 +184,7 @@ public class IntMatcher<T, MaskType extends Mask<MaskType>> implements Constrain
     }
 
     public float averageSelectivity() {
-        return avgCardinality(children, IntNode::averageSelectivity);
+        return (float) (null != narrowSegments ? narrowSegments.averageSelectivity() : segments.averageSelectivity());
     }
 
     private void add(Operation relation, int threshold, int priority) {
@@ -65,8 +196,48 @@ public class IntMatcher<T, MaskType extends Mask<MaskType>> implements Constrain
         existing.add(threshold, priority);
     }
 
+    private void addNotEqual(int value, int priority) {
+        int maskId = notEqual.get(value);
+        if (0 == maskId) {
+            maskId = store.newMaskId();
+            notEqual.put(value, maskId);
+        }
+        store.add(maskId, priority);
+    }
+
+    private static IntSet toSet(List<Number> values) {
+        var set = new IntOpenHashSet(values.size());
+        for (Number value : values) {
+            set.add(value.intValue());
+        }
+        return set;
+    }
+
+    private static IntSet retain(IntSet points, IntSet values) {
+        if (null == points) {
+            return values;
+        }
+        points.retainAll(values);
+        return points;
+    }
+
+    private void addRange(int from, int to, int priority) {
+        var existing = children[Operation.BETWEEN.ordinal()];
+        if (null == existing) {
+            existing = children[Operation.BETWEEN.ordinal()]
+                    = new IntNode<>(store, Operation.BETWEEN);
+        }
+        existing.addRange(from, to, priority);
+    }
+
     @SuppressWarnings("unchecked")
     private void optimise() {
+        var equality = children[Operation.EQ.ordinal()];
+        boolean indexEquality = null != equality && equality.size() >= MIN_INDEXED_VALUES;
+        if (indexEquality) {
+            // hashing is faster than searching so many values, and keeps them out of the segments
+            children[Operation.EQ.ordinal()] = null;
+        }
         int nullCount = nullCount(children);
         if (nullCount > 0) {
             var newChildren = (IntNode<MaskType>[]) newArray(IntNode.class, children.length - nullCount);
@@ -78,7 +249,50 @@ public class IntMatcher<T, MaskType extends Mask<MaskType>> implements Constrain
             }
             children = newChildren;
         }
+        // a single lookup finds the union of the wildcards and every matching threshold
+        segments = IntNode.merge(store, wildcards, children);
+        children = null;
+        if (indexEquality || !notEqual.isEmpty()) {
+            pointMasks = new Int2IntOpenHashMap(notEqual.size() + (indexEquality ? equality.size() : 0));
+            pointMasks.defaultReturnValue(-1);
+            if (indexEquality) {
+                for (int i = 0; i < equality.size(); ++i) {
+                    addPoint(equality.threshold(i), equality.maskId(i));
+                }
+            }
+            for (int value : notEqual.keySet()) {
+                if (!pointMasks.containsKey(value)) {
+                    addPoint(value, 0);
+                }
+            }
+        }
+        notEqual = null;
+        if ((long) maxValue - minValue < MAX_DOMAIN_SIZE) {
+            domain = new int[maxValue - minValue + 1];
+            for (int i = 0; i < domain.length; ++i) {
+                domain[i] = lookup(minValue + i);
+            }
+        }
+        if ((long) maxValue - minValue < ShortNode.MAX_DOMAIN_SIZE && !segments.isDense()) {
+            narrowSegments = ShortNode.narrow(store, segments, minValue, maxValue);
+            segments = null;
+        }
     }
 
-
+    private void addPoint(int value, int equalityMaskId) {
+        MaskType mask = store.getTemp(segments.match(value, 0));
+        store.orInto(mask, equalityMaskId);
+        // as in GenericConstraintAccumulator, rules excluding a value are in the wildcards,
+        // so the mask for an excluded value is the mask it would otherwise get without those rules
+        int excluded = notEqual.get(value);
+        if (0 != excluded) {
+            mask.inPlaceAndNot(store.getMask(excluded));
+        }
+        int maskId = 0;
+        if (!mask.isEmpty()) {
+            maskId = store.storeMask(mask.clone());
+            store.optimise(maskId);
+        }
+        pointMasks.put(value, maskId);
+    }
 }
@@ -4,19 +4,32 @@ import io.github.richardstartin.multimatcher.core.*;
 import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 import io.github.richardstartin.multimatcher.core.matchers.nodes.LongNode;
 
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+import java.util.List;
 import java.util.function.ToLongFunction;
 
 import static io.github.richardstartin.multimatcher.core.Utils.newArray;
 import static io.github.richardstartin.multimatcher.core.Utils.nullCount;
-import static io.github.richardstartin.multimatcher.core.matchers.SelectivityHeuristics.avgCardinality;
 
 public class LongMatcher<T, MaskType extends Mask<MaskType>> implements ConstraintAccumulator<T, MaskType>,
         Matcher<T, MaskType> {
 
+    /**
+     * The number of equality constraints above which the values are
+     * looked up in a hash table instead of being searched.
+     */
+    private static final int MIN_INDEXED_VALUES = 1 << 10;
+
     private final ToLongFunction<T> accessor;
     private final int wildcards;
     private final MaskStore<MaskType> store;
     private LongNode<MaskType>[] children;
+    private LongNode<MaskType> segments;
+    private Long2IntOpenHashMap notEqual = new Long2IntOpenHashMap();
+    private Long2IntOpenHashMap pointMasks;
 
     @SuppressWarnings("unchecked")
     public LongMatcher(ToLongFunction<T> accessor, MaskStore<MaskType> maskStore, int max) {
@@ -28,23 +41,120 @@ public class LongMatcher<T, MaskType extends Mask<MaskType>> implements Constrai
 
     @Override
     public void match(T value, MaskType context) {
-        MaskType temp = store.getTemp(wildcards);
-        long attributeValue = accessor.applyAsLong(value);
-        for (var component : children) {
-            store.orInto(temp, component.match(attributeValue, 0));
+        store.andInto(context, lookup(accessor.applyAsLong(value)));
+    }
+
+    private int lookup(long value) {
+        if (null != pointMasks) {
+            int mask = pointMasks.get(value);
+            if (mask >= 0) {
+                return mask;
+            }
         }
-        context.inPlaceAnd(temp);
+        return segments.match(value, 0);
     }
 
     @Override
     public boolean addConstraint(Constraint constraint, int priority) {
+        switch (constraint.getOperation()) {
+            case BETWEEN:
+            case IN:
+                return addConstraints(List.of(constraint), priority);
+            case NE:
+                // the rule stays in the wildcards and is removed at the excluded value
+                addNotEqual(constraint.<Number>getValue().longValue(), priority);
+                return true;
+            default:
+        }
         Number number = constraint.getValue();
-        int value = number.intValue();
+        long value = number.longValue();
         add(constraint.getOperation(), value, priority);
         store.remove(wildcards, priority);
         return true;
     }
 
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        if (constraints.size() == 1
+                && constraints.get(0).getOperation() != Operation.BETWEEN
+                && constraints.get(0).getOperation() != Operation.IN) {
+            return addConstraint(constraints.get(0), priority);
+        }
+        // intersect the ranges so the rule can be matched with a single lookup
+        long lower = Long.MIN_VALUE;
+        long upper = Long.MAX_VALUE;
+        boolean hasLower = false;
+        boolean hasUpper = false;
+        boolean constrained = false;
+        LongSet points = null;
+        boolean empty = false;
+        for (var constraint : constraints) {
+            switch (constraint.getOperation()) {
+                case BETWEEN:
+                    List<Number> range = constraint.getValue();
+                    lower = Math.max(lower, range.get(0).longValue());
+                    upper = Math.min(upper, range.get(1).longValue());
+                    hasLower = hasUpper = true;
+                    break;
+                case GT:
+                    long exclusiveLower = constraint.<Number>getValue().longValue();
+                    empty |= exclusiveLower == Long.MAX_VALUE;
+                    lower = Math.max(lower, exclusiveLower + 1);
+                    hasLower = true;
+                    break;
+                case GE:
+                    lower = Math.max(lower, constraint.<Number>getValue().longValue());
+                    hasLower = true;
+                    break;
+                case LT:
+                    long exclusiveUpper = constraint.<Number>getValue().longValue();
+                    empty |= exclusiveUpper == Long.MIN_VALUE;
+                    upper = Math.min(upper, exclusiveUpper - 1);
+                    hasUpper = true;
+                    break;
+                case LE:
+                    upper = Math.min(upper, constraint.<Number>getValue().longValue());
+                    hasUpper = true;
+                    break;
+                case EQ:
+                    points = retain(points, toSet(List.of(constraint.<Number>getValue())));
+                    break;
+                case IN:
+                    points = retain(points, toSet(constraint.getValue()));
+                    break;
+                case NE:
+                    addNotEqual(constraint.<Number>getValue().longValue(), priority);
+                    break;
+                default:
+                    add(constraint.getOperation(), constraint.<Number>getValue().longValue(), priority);
+                    constrained = true;
+            }
+        }
+        if (null != points) {
+            var it = points.iterator();
+            while (it.hasNext()) {
+                long point = it.nextLong();
+                if (!empty && (!hasLower || point >= lower) && (!hasUpper || point <= upper)) {
+                    add(Operation.EQ, point, priority);
+                }
+            }
+        } else if (!empty && lower <= upper) {
+            if (lower == upper) {
+                add(Operation.EQ, lower, priority);
+            } else if (hasLower && hasUpper) {
+                addRange(lower, upper, priority);
+            } else if (hasLower) {
+                add(Operation.GE, lower, priority);
+            } else if (hasUpper) {
+                add(Operation.LE, upper, priority);
+            }
+        }
+        if (null != points || hasLower || hasUpper || constrained) {
+            store.remove(wildcards, priority);
+        }
+        return true;
+    }
+
     @Override
     public Matcher<T, MaskType> toMatcher() {
         optimise();
@@ -53,10 +163,10 @@ public class LongMatcher<T, MaskType extends Mask<MaskType>> implements Constrai
     }
 
     public float averageSelectivity() {
-        return avgCardinality(children, LongNode::averageSelectivity);
+        return (float) segments.averageSelectivity();
     }
 
-    private void add(Operation relation, int threshold, int priority) {
+    private void add(Operation relation, long threshold, int priority) {
         var existing = children[relation.ordinal()];
         if (null == existing) {
             existing = children[relation.ordinal()] = new LongNode<>(store, relation);
@@ -64,8 +174,47 @@ public class LongMatcher<T, MaskType extends Mask<MaskType>> implements Constrai
         existing.add(threshold, priority);
     }
 
+    private void addNotEqual(long value, int priority) {
+        int maskId = notEqual.get(value);
+        if (0 == maskId) {
+            maskId = store.newMaskId();
+            notEqual.put(value, maskId);
+        }
+        store.add(maskId, priority);
+    }
+
+    private static LongSet toSet(List<Number> values) {
+        var set = new LongOpenHashSet(values.size());
+        for (Number value : values) {
+            set.add(value.longValue());
+        }
+        return set;
+    }
+
+    private static LongSet retain(LongSet points, LongSet values) {
+        if (null == points) {
+            return values;
+        }
+        points.retainAll(values);
+        return points;
+    }
+
+    private void addRange(long from, long to, int priority) {
+        var existing = children[Operation.BETWEEN.ordinal()];
+        if (null == existing) {
+            existing = children[Operation.BETWEEN.ordinal()] = new LongNode<>(store, Operation.BETWEEN);
+        }
+        existing.addRange(from, to, priority);
+    }
+
     @SuppressWarnings("unchecked")
     private void optimise() {
+        var equality = children[Operation.EQ.ordinal()];
+        boolean indexEquality = null != equality && equality.size() >= MIN_INDEXED_VALUES;
+        if (indexEquality) {
+            // hashing is faster than searching so many values, and keeps them out of the segments
+            children[Operation.EQ.ordinal()] = null;
+        }
         int nullCount = nullCount(children);
         if (nullCount > 0) {
             var newChildren = (LongNode<MaskType>[]) newArray(LongNode.class, children.length - nullCount);
@@ -77,6 +226,40 @@ public class LongMatcher<T, MaskType extends Mask<MaskType>> implements Constrai
             }
             children = newChildren;
         }
+        // a single lookup finds the union of the wildcards and every matching threshold
+        segments = LongNode.merge(store, wildcards, children);
+        children = null;
+        if (indexEquality || !notEqual.isEmpty()) {
+            pointMasks = new Long2IntOpenHashMap(notEqual.size() + (indexEquality ? equality.size() : 0));
+            pointMasks.defaultReturnValue(-1);
+            if (indexEquality) {
+                for (int i = 0; i < equality.size(); ++i) {
+                    addPoint(equality.threshold(i), equality.maskId(i));
+                }
+            }
+            for (long value : notEqual.keySet()) {
+                if (!pointMasks.containsKey(value)) {
+                    addPoint(value, 0);
+                }
+            }
+        }
+        notEqual = null;
     }
 
+    private void addPoint(long value, int equalityMaskId) {
+        MaskType mask = store.getTemp(segments.match(value, 0));
+        store.orInto(mask, equalityMaskId);
+        // as in GenericConstraintAccumulator, rules excluding a value are in the wildcards,
+        // so the mask for an excluded value is the mask it would otherwise get without those rules
+        int excluded = notEqual.get(value);
+        if (0 != excluded) {
+            mask.inPlaceAndNot(store.getMask(excluded));
+        }
+        int maskId = 0;
+        if (!mask.isEmpty()) {
+            maskId = store.storeMask(mask.clone());
+            store.optimise(maskId);
+        }
+        pointMasks.put(value, maskId);
+    }
 }
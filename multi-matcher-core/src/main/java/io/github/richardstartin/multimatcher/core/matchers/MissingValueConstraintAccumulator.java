@@ -0,0 +1,187 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Constraint;
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.MissingValuePolicy;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static io.github.richardstartin.multimatcher.core.Operation.EQ;
+import static io.github.richardstartin.multimatcher.core.Operation.IN;
+import static io.github.richardstartin.multimatcher.core.Operation.IS_NOT_NULL;
+import static io.github.richardstartin.multimatcher.core.Operation.IS_NULL;
+import static io.github.richardstartin.multimatcher.core.Operation.NE;
+
+/**
+ * Matches missing values with a mask computed from the constraints on the
+ * attribute and the missing value policy, and passes constraints on values
+ * which are present to another accumulator. Null checks are handled here,
+ * so the other accumulator never sees a null value.
+ *
+ * @param <T>        the type of the classified objects
+ * @param <V>        the type of the attribute values
+ * @param <MaskType> the mask type
+ */
+public class MissingValueConstraintAccumulator<T, V, MaskType extends Mask<MaskType>>
+        implements ConstraintAccumulator<T, MaskType> {
+
+    private final Function<T, ? extends V> accessor;
+    private final ConstraintAccumulator<V, MaskType> delegate;
+    private final MissingValuePolicy policy;
+    private final MaskStore<MaskType> store;
+    private final int max;
+    // the rules with a constraint not satisfied by missing values
+    private final MaskType rejectsMissing;
+    // the rules only satisfied by missing values
+    private final MaskType requiresMissing;
+
+    public MissingValueConstraintAccumulator(Function<T, ? extends V> accessor,
+                                             ConstraintAccumulator<V, MaskType> delegate,
+                                             MissingValuePolicy policy,
+                                             MaskStore<MaskType> store,
+                                             int max) {
+        this.accessor = accessor;
+        this.delegate = delegate;
+        this.policy = policy;
+        this.store = store;
+        this.max = max;
+        this.rejectsMissing = store.newMask();
+        this.requiresMissing = store.newMask();
+    }
+
+    @Override
+    public boolean addConstraint(Constraint constraint, int priority) {
+        return addConstraints(List.of(constraint), priority);
+    }
+
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        List<Constraint> present = new ArrayList<>(constraints.size());
+        for (var constraint : constraints) {
+            var operation = constraint.getOperation();
+            if (operation == IS_NULL || (operation == EQ && null == constraint.getValue())) {
+                requiresMissing.add(priority);
+            } else if (operation == IS_NOT_NULL || (operation == NE && null == constraint.getValue())) {
+                rejectsMissing.add(priority);
+            } else if (operation == IN && containsNull(constraint.getValue())) {
+                // null is permitted explicitly, so present values must be one of the others
+                List<Object> values = new ArrayList<>(constraint.<Collection<?>>getValue());
+                values.removeIf(Objects::isNull);
+                if (values.isEmpty()) {
+                    requiresMissing.add(priority);
+                } else {
+                    present.add(Constraint.in(values));
+                }
+            } else {
+                if (!satisfiedByMissingValue(constraint)) {
+                    rejectsMissing.add(priority);
+                }
+                present.add(constraint);
+            }
+        }
+        boolean added = present.size() < constraints.size();
+        if (!present.isEmpty()) {
+            added |= delegate.addConstraints(present, priority);
+        }
+        return added;
+    }
+
+    @Override
+    public Matcher<T, MaskType> toMatcher() {
+        var matcher = delegate.toMatcher();
+        var missing = store.contiguous(max).inPlaceAndNot(rejectsMissing);
+        missing.optimise();
+        int missingId = store.storeMask(missing);
+        if (requiresMissing.isEmpty()) {
+            return new MissingValueMatcher<>(store, accessor, matcher, missingId);
+        }
+        var notMissing = requiresMissing.inPlaceNot(max);
+        notMissing.optimise();
+        return new MissingValueMatcher<>(store, accessor, matcher, missingId, store.storeMask(notMissing));
+    }
+
+    private static boolean containsNull(Collection<?> values) {
+        // immutable collections throw rather than look for null
+        for (Object value : values) {
+            if (null == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean satisfiedByMissingValue(Constraint constraint) {
+        switch (policy) {
+            case WILDCARD:
+                return true;
+            case NEVER_MATCH:
+                return false;
+            default:
+                return constraint.getOperation() == NE;
+        }
+    }
+
+    private static class MissingValueMatcher<T, V, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+        private final MaskStore<MaskType> store;
+        private final Function<T, ? extends V> accessor;
+        private final Matcher<V, MaskType> delegate;
+        private final int missing;
+        private final boolean excludesRequiresMissing;
+        private final int notMissing;
+
+        MissingValueMatcher(MaskStore<MaskType> store,
+                            Function<T, ? extends V> accessor,
+                            Matcher<V, MaskType> delegate,
+                            int missing) {
+            this(store, accessor, delegate, missing, false, 0);
+        }
+
+        MissingValueMatcher(MaskStore<MaskType> store,
+                            Function<T, ? extends V> accessor,
+                            Matcher<V, MaskType> delegate,
+                            int missing,
+                            int notMissing) {
+            this(store, accessor, delegate, missing, true, notMissing);
+        }
+
+        private MissingValueMatcher(MaskStore<MaskType> store,
+                                    Function<T, ? extends V> accessor,
+                                    Matcher<V, MaskType> delegate,
+                                    int missing,
+                                    boolean excludesRequiresMissing,
+                                    int notMissing) {
+            this.store = store;
+            this.accessor = accessor;
+            this.delegate = delegate;
+            this.missing = missing;
+            this.excludesRequiresMissing = excludesRequiresMissing;
+            this.notMissing = notMissing;
+        }
+
+        @Override
+        public void match(T input, MaskType context) {
+            V value = accessor.apply(input);
+            if (null == value) {
+                store.andInto(context, missing);
+            } else {
+                delegate.match(value, context);
+                if (excludesRequiresMissing) {
+                    store.andInto(context, notMissing);
+                }
+            }
+        }
+
+        @Override
+        public float averageSelectivity() {
+            return delegate.averageSelectivity();
+        }
+    }
+}
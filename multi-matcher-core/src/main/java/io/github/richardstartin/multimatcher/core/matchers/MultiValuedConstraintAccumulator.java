@@ -0,0 +1,120 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Constraint;
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static io.github.richardstartin.multimatcher.core.Operation.EQ;
+import static io.github.richardstartin.multimatcher.core.Operation.IN;
+import static io.github.richardstartin.multimatcher.core.Operation.NE;
+
+/**
+ * Accumulates constraints on attributes with several values, such as tags.
+ * EQ and IN constraints are satisfied when any of the values is permitted,
+ * and NE constraints are satisfied when none of the values is the excluded
+ * value.
+ *
+ * @param <T>        the type of the classified objects
+ * @param <U>        the type of the values
+ * @param <MaskType> the mask type
+ */
+public class MultiValuedConstraintAccumulator<T, U, MaskType extends Mask<MaskType>>
+        implements ConstraintAccumulator<T, MaskType> {
+
+    private final Function<T, ?> accessor;
+    private final Map<U, MaskType> contains = new HashMap<>();
+    private final Map<U, MaskType> excludes = new HashMap<>();
+    private final MaskStore<MaskType> store;
+    private final MaskType wildcard;
+    private final int max;
+
+    /**
+     * @param accessor extracts the values from the input, as an Iterable or an array
+     * @param store    the mask store
+     * @param max      the number of rules
+     */
+    public MultiValuedConstraintAccumulator(Function<T, ?> accessor,
+                                            MaskStore<MaskType> store,
+                                            int max) {
+        this.accessor = accessor;
+        this.store = store;
+        this.max = max;
+        this.wildcard = store.contiguous(max);
+    }
+
+    @Override
+    public boolean addConstraint(Constraint constraint, int priority) {
+        if (constraint.getOperation() == EQ) {
+            update(contains, constraint.getValue(), priority);
+            wildcard.remove(priority);
+        } else if (constraint.getOperation() == IN) {
+            for (U value : constraint.<Collection<U>>getValue()) {
+                update(contains, value, priority);
+            }
+            wildcard.remove(priority);
+        } else if (constraint.getOperation() == NE) {
+            update(excludes, constraint.getValue(), priority);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addConstraints(List<Constraint> constraints, int priority) {
+        int memberships = 0;
+        for (var constraint : constraints) {
+            if (constraint.getOperation() == EQ || constraint.getOperation() == IN) {
+                ++memberships;
+            }
+        }
+        if (memberships > 1) {
+            // the rule would need to contain several values, which a union of masks can't express
+            throw new IllegalArgumentException("At most one EQ or IN constraint is supported per multi-valued attribute");
+        }
+        return ConstraintAccumulator.super.addConstraints(constraints, priority);
+    }
+
+    @Override
+    public Matcher<T, MaskType> toMatcher() {
+        // rules without a membership constraint are satisfied by any values, including none
+        Object2IntMap<U> containsMasks = new Object2IntOpenHashMap<>(contains.size());
+        for (var entry : contains.entrySet()) {
+            var mask = entry.getValue();
+            mask.optimise();
+            containsMasks.put(entry.getKey(), store.storeMask(mask));
+        }
+        Object2IntMap<U> excludesMasks = null;
+        if (!excludes.isEmpty()) {
+            // the rules not excluded by each value, so the exclusions can be intersected
+            excludesMasks = new Object2IntOpenHashMap<>(excludes.size());
+            excludesMasks.defaultReturnValue(store.newContiguousMaskId(max));
+            for (var entry : excludes.entrySet()) {
+                var mask = entry.getValue().inPlaceNot(max);
+                mask.optimise();
+                excludesMasks.put(entry.getKey(), store.storeMask(mask));
+            }
+        }
+        wildcard.optimise();
+        return new MultiValuedMatcher<>(store, accessor, containsMasks, excludesMasks, store.storeMask(wildcard));
+    }
+
+    private void update(Map<U, MaskType> map, U key, int priority) {
+        var mask = map.get(key);
+        if (null == mask) {
+            mask = store.newMask();
+            map.put(key, mask);
+        }
+        mask.add(priority);
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+class MultiValuedMatcher<T, U, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+    private final Function<T, ?> accessor;
+    private final Object2IntMap<U> contains;
+    private final Object2IntMap<U> excludes;
+    private final int wildcard;
+    private final MaskStore<MaskType> store;
+
+    MultiValuedMatcher(MaskStore<MaskType> store,
+                       Function<T, ?> accessor,
+                       Object2IntMap<U> contains,
+                       Object2IntMap<U> excludes,
+                       int wildcard) {
+        this.accessor = accessor;
+        this.contains = contains;
+        this.excludes = excludes;
+        this.wildcard = wildcard;
+        this.store = store;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void match(T input, MaskType context) {
+        Object values = accessor.apply(input);
+        if (null == values) {
+            store.andInto(context, wildcard);
+            return;
+        }
+        // the temporary mask is reused, so this doesn't allocate for bitset masks
+        MaskType union = store.getTemp(wildcard);
+        // arrays and random access lists are iterated by index, so no iterator is allocated
+        if (values instanceof Object[]) {
+            for (Object value : (Object[]) values) {
+                accumulate((U) value, union, context);
+            }
+        } else if (values instanceof RandomAccess && values instanceof List) {
+            List<U> list = (List<U>) values;
+            for (int i = 0; i < list.size(); ++i) {
+                accumulate(list.get(i), union, context);
+            }
+        } else {
+            for (U value : (Iterable<U>) values) {
+                accumulate(value, union, context);
+            }
+        }
+        context.inPlaceAnd(union);
+    }
+
+    private void accumulate(U value, MaskType union, MaskType context) {
+        store.orInto(union, contains.getInt(value));
+        if (null != excludes) {
+            store.andInto(context, excludes.getInt(value));
+        }
+    }
+
+    @Override
+    public float averageSelectivity() {
+        return (float)store.averageSelectivity(contains.values().toIntArray());
+    }
+
+}
@@ -0,0 +1,242 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.function.Function;
+
+/**
+ * Looks up the masks of a fixed set of values with a minimal perfect hash
+ * function over their hash codes, built with the hash and displace algorithm:
+ * the hash codes are split into buckets of about {@link #VALUES_PER_BUCKET},
+ * and each bucket records either the seed which maps all of its hash codes to
+ * free slots, or the slot of its only hash code. Every lookup hashes twice
+ * and compares against the single candidate value. Values sharing a hash code
+ * share a slot, which holds a small hash map of those values instead.
+ * <p>
+ * Each value costs a reference and a mask id, and each bucket an int, which
+ * is about 9 bytes per value compared to between 10 and 21 bytes per value for
+ * an open addressing hash table with a load factor of 0.75.
+ */
+class PerfectHashMatcher<T, U, MaskType extends Mask<MaskType>> implements Matcher<T, MaskType> {
+
+    /**
+     * Below this many values, an open addressing hash table is as fast and
+     * cheaper to build.
+     */
+    static final int MIN_SIZE = 1 << 16;
+
+    /**
+     * The average number of hash codes in each bucket, which trades the size
+     * of the displacements for the time taken to find seeds.
+     */
+    static final int VALUES_PER_BUCKET = 4;
+
+    private static final int MAX_SEED = 1 << 20;
+
+    // the mask id of a slot holding a map of the values sharing a hash code
+    private static final int OVERFLOW = -1;
+
+    private final Function<T, U> accessor;
+    private final int[] displacements;
+    private final Object[] values;
+    private final int[] masks;
+    private final int wildcard;
+    private final float averageSelectivity;
+    private final MaskStore<MaskType> store;
+    private final BlockedBloomFilter filter;
+
+    private PerfectHashMatcher(MaskStore<MaskType> store,
+                               Function<T, U> accessor,
+                               int[] displacements,
+                               Object[] values,
+                               int[] masks,
+                               int wildcard,
+                               float averageSelectivity,
+                               BlockedBloomFilter filter) {
+        this.filter = filter;
+        this.accessor = accessor;
+        this.displacements = displacements;
+        this.values = values;
+        this.masks = masks;
+        this.wildcard = wildcard;
+        this.averageSelectivity = averageSelectivity;
+        this.store = store;
+    }
+
+    /**
+     * Builds a perfect hash over the hash codes of the values.
+     *
+     * @param store    the mask store
+     * @param accessor the attribute accessor
+     * @param masks    the mask ids of each value
+     * @param wildcard the mask id for values without a mask
+     * @param filter   rejects absent values before hashing, or null
+     * @return a matcher, or null if no perfect hash could be found
+     */
+    @SuppressWarnings("unchecked")
+    static <T, U, MaskType extends Mask<MaskType>>
+    PerfectHashMatcher<T, U, MaskType> build(MaskStore<MaskType> store,
+                                             Function<T, U> accessor,
+                                             Object2IntMap<U> masks,
+                                             int wildcard,
+                                             BlockedBloomFilter filter) {
+        if (masks.isEmpty() || masks.containsKey(null)) {
+            return null;
+        }
+        // each distinct hash code has either its value or a map of the values sharing it
+        var byHash = new Int2ObjectOpenHashMap<Object>(masks.size());
+        for (U value : masks.keySet()) {
+            int hash = value.hashCode();
+            Object existing = byHash.putIfAbsent(hash, value);
+            if (null != existing) {
+                Object2IntMap<U> overflow;
+                if (existing instanceof Overflow) {
+                    overflow = (Overflow<U>) existing;
+                } else {
+                    overflow = new Overflow<>(wildcard);
+                    overflow.put((U) existing, masks.getInt(existing));
+                    byHash.put(hash, overflow);
+                }
+                overflow.put(value, masks.getInt(value));
+            }
+        }
+        int size = byHash.size();
+        int bucketCount = (size + VALUES_PER_BUCKET - 1) / VALUES_PER_BUCKET;
+        // counting sort the hash codes by bucket
+        int[] hashes = byHash.keySet().toIntArray();
+        int[] bucketOffsets = new int[bucketCount + 1];
+        for (int hash : hashes) {
+            ++bucketOffsets[slot(hash, 0, bucketCount) + 1];
+        }
+        for (int i = 0; i < bucketCount; ++i) {
+            bucketOffsets[i + 1] += bucketOffsets[i];
+        }
+        int[] bucketed = new int[size];
+        int[] positions = new int[bucketCount];
+        for (int hash : hashes) {
+            int bucket = slot(hash, 0, bucketCount);
+            bucketed[bucketOffsets[bucket] + positions[bucket]++] = hash;
+        }
+        int[] order = new int[bucketCount];
+        for (int i = 0; i < bucketCount; ++i) {
+            order[i] = i;
+        }
+        // place the largest buckets while there are plenty of free slots
+        IntArrays.quickSort(order, (l, r) -> Integer.compare(
+                bucketOffsets[r + 1] - bucketOffsets[r], bucketOffsets[l + 1] - bucketOffsets[l]));
+        int[] displacements = new int[bucketCount];
+        Object[] values = new Object[size];
+        int[] slots = new int[8];
+        int next = 0;
+        for (; next < bucketCount && bucketSize(bucketOffsets, order[next]) > 1; ++next) {
+            int bucket = order[next];
+            int from = bucketOffsets[bucket];
+            int to = bucketOffsets[bucket + 1];
+            if (slots.length < to - from) {
+                slots = new int[to - from];
+            }
+            int seed = 1;
+            while (!fits(bucketed, from, to, seed, values, slots)) {
+                if (++seed == MAX_SEED) {
+                    return null;
+                }
+            }
+            for (int i = from; i < to; ++i) {
+                values[slots[i - from]] = byHash.get(bucketed[i]);
+            }
+            displacements[bucket] = seed;
+        }
+        // buckets with a single hash code can point directly at any free slot
+        int free = 0;
+        for (; next < bucketCount && bucketSize(bucketOffsets, order[next]) == 1; ++next) {
+            while (null != values[free]) {
+                ++free;
+            }
+            values[free] = byHash.get(bucketed[bucketOffsets[order[next]]]);
+            displacements[order[next]] = -free - 1;
+        }
+        int[] maskIds = new int[size];
+        for (int i = 0; i < size; ++i) {
+            maskIds[i] = values[i] instanceof Overflow ? OVERFLOW : masks.getInt(values[i]);
+        }
+        float averageSelectivity = (float) store.averageSelectivity(masks.values().toIntArray());
+        return new PerfectHashMatcher<>(store, accessor, displacements, values, maskIds, wildcard,
+                averageSelectivity, filter);
+    }
+
+    @Override
+    public void match(T input, MaskType context) {
+        store.andInto(context, lookup(accessor.apply(input)));
+    }
+
+    @Override
+    public float averageSelectivity() {
+        return averageSelectivity;
+    }
+
+    @SuppressWarnings("unchecked")
+    int lookup(U value) {
+        if (null == value) {
+            return wildcard;
+        }
+        int hash = value.hashCode();
+        if (null != filter && !filter.mightContain(hash)) {
+            return wildcard;
+        }
+        int displacement = displacements[slot(hash, 0, displacements.length)];
+        int slot = displacement < 0 ? -displacement - 1 : slot(hash, displacement, values.length);
+        int maskId = masks[slot];
+        if (OVERFLOW == maskId) {
+            return ((Overflow<U>) values[slot]).getInt(value);
+        }
+        return value.equals(values[slot]) ? maskId : wildcard;
+    }
+
+    private static boolean fits(int[] hashes, int from, int to, int seed, Object[] values, int[] slots) {
+        for (int i = from; i < to; ++i) {
+            int slot = slot(hashes[i], seed, values.length);
+            if (null != values[slot]) {
+                return false;
+            }
+            for (int j = 0; j < i - from; ++j) {
+                if (slots[j] == slot) {
+                    return false;
+                }
+            }
+            slots[i - from] = slot;
+        }
+        return true;
+    }
+
+    private static int bucketSize(int[] bucketOffsets, int bucket) {
+        return bucketOffsets[bucket + 1] - bucketOffsets[bucket];
+    }
+
+    private static int slot(int hash, int seed, int size) {
+        int h = hash ^ (seed * 0x9E3779B9);
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % size;
+    }
+
+    /**
+     * The values sharing a hash code, which can't be separated by any seed.
+     */
+    private static final class Overflow<U> extends Object2IntOpenHashMap<U> {
+
+        private static final long serialVersionUID = 1L;
+
+        private Overflow(int wildcard) {
+            super(2);
+            defaultReturnValue(wildcard);
+        }
+    }
+}
@@ -15,13 +15,21 @@ public class StringConstraintAccumulator<Input, MaskType extends Mask<MaskType>>
     public StringConstraintAccumulator(Function<Input, String> accessor,
                                        MaskStore<MaskType> maskStore,
                                        int max) {
-        this(Object2IntOpenHashMap::new, accessor, maskStore, max);
+        this(accessor, maskStore, max, false);
+    }
+
+    public StringConstraintAccumulator(Function<Input, String> accessor,
+                                       MaskStore<MaskType> maskStore,
+                                       int max,
+                                       boolean sparse) {
+        this(Object2IntOpenHashMap::new, accessor, maskStore, max, sparse);
     }
 
     private StringConstraintAccumulator(Supplier<Object2IntMap<String>> mapSupplier,
                                         Function<Input, String> accessor,
                                         MaskStore<MaskType> maskStore,
-                                        int max) {
-        super(mapSupplier, HashMap::new, accessor, maskStore, max);
+                                        int max,
+                                        boolean sparse) {
+        super(mapSupplier, HashMap::new, accessor, maskStore, max, sparse);
     }
 }
@@ -0,0 +1,66 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Matcher;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Accumulates string constraints which are matched against UTF-8 encoded
+ * input. The values in the rules are encoded into a single array, and the
+ * matcher looks up slices of it by content, so the input is never decoded.
+ *
+ * @param <Input>    the type of the classified objects
+ * @param <MaskType> the mask type
+ */
+public class Utf8ConstraintAccumulator<Input, MaskType extends Mask<MaskType>>
+        extends GenericConstraintAccumulator<Input, String, MaskType> {
+
+    private final Function<Input, ByteBuffer> bytesAccessor;
+
+    public Utf8ConstraintAccumulator(Function<Input, ByteBuffer> accessor,
+                                     MaskStore<MaskType> maskStore,
+                                     int max) {
+        // the values are only ever read as bytes
+        super(Object2IntOpenHashMap::new, HashMap::new, null, maskStore, max);
+        this.bytesAccessor = accessor;
+    }
+
+    @Override
+    public Matcher<Input, MaskType> toMatcher() {
+        Object2IntMap<String> masks = computeLiteralMasks();
+        byte[][] encoded = new byte[masks.size()][];
+        int length = 0;
+        int i = 0;
+        for (String value : masks.keySet()) {
+            if (null != value) {
+                encoded[i] = value.getBytes(UTF_8);
+                length += encoded[i].length;
+            }
+            ++i;
+        }
+        byte[] arena = new byte[length];
+        Object2IntMap<ByteBuffer> slices = new Object2IntOpenHashMap<>(masks.size());
+        int offset = 0;
+        i = 0;
+        for (var entry : masks.object2IntEntrySet()) {
+            byte[] bytes = encoded[i++];
+            if (null == bytes) {
+                slices.put(null, entry.getIntValue());
+            } else {
+                System.arraycopy(bytes, 0, arena, offset, bytes.length);
+                // buffers hash and compare the bytes between position and limit
+                slices.put(ByteBuffer.wrap(arena, offset, bytes.length), entry.getIntValue());
+                offset += bytes.length;
+            }
+        }
+        return newMatcher(bytesAccessor, slices, store.storeMask(wildcard));
+    }
+}
@@ -6,9 +6,12 @@ import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 import io.github.richardstartin.multimatcher.core.matchers.ClassificationNode;
 import io.github.richardstartin.multimatcher.core.matchers.MutableNode;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import static io.github.richardstartin.multimatcher.core.matchers.SelectivityHeuristics.avgCardinality;
 
@@ -16,13 +19,23 @@ public class ComparableNode<T, MaskType extends Mask<MaskType>>
         implements MutableNode<T, MaskType>, ClassificationNode<T, MaskType> {
 
     private final MaskStore<MaskType> store;
-    private final NavigableMap<T, Integer> sets;
+    private final Comparator<T> comparator;
     private final Operation operation;
+    private NavigableMap<T, Integer> sets;
+    private NavigableMap<T, Integer> above;
+    private int below;
+
+    // the frozen form, where gaps holds the masks of the values between thresholds
+    private T[] thresholds;
+    private int[] masks;
+    private int[] gaps;
 
     public ComparableNode(MaskStore<MaskType> store,
                           Comparator<T> comparator,
                           Operation operation) {
+        this.comparator = comparator;
         this.sets = new TreeMap<>(comparator);
+        this.above = Operation.BETWEEN == operation ? new TreeMap<>(comparator) : null;
         this.operation = operation;
         this.store = store;
     }
@@ -36,41 +49,242 @@ public class ComparableNode<T, MaskType extends Mask<MaskType>>
         store.add(set, priority);
     }
 
+    /**
+     * Adds a range, only valid for nodes with the relation BETWEEN.
+     * Each threshold has a mask for values equal to the threshold, and a mask
+     * for values between the threshold and the next threshold, so a single
+     * lookup finds all the ranges containing a value.
+     *
+     * @param from          the lower bound
+     * @param fromInclusive whether values equal to the lower bound are in the range
+     * @param to            the upper bound
+     * @param toInclusive   whether values equal to the upper bound are in the range
+     * @param priority      the identity named the constraint
+     */
+    public void addRange(T from, boolean fromInclusive, T to, boolean toInclusive, int priority) {
+        split(from);
+        split(to);
+        for (var threshold : sets.subMap(from, true, to, true).entrySet()) {
+            T value = threshold.getKey();
+            boolean isLower = comparator.compare(value, from) == 0;
+            boolean isUpper = comparator.compare(value, to) == 0;
+            if ((!isLower || fromInclusive) && (!isUpper || toInclusive)) {
+                store.add(threshold.getValue(), priority);
+            }
+            if (!isUpper) {
+                store.add(above.get(value), priority);
+            }
+        }
+    }
+
+    /**
+     * Merges nodes into a single node with the relation BETWEEN, which finds
+     * the union of the wildcards and the masks matched by each node with a
+     * single lookup. Thresholds where the combined mask doesn't change are
+     * dropped.
+     *
+     * @param store      the mask store
+     * @param comparator the comparator
+     * @param wildcards  the mask id of the constraints satisfied by any value
+     * @param nodes      the frozen nodes to merge
+     * @param <T>        the type of the thresholds
+     * @param <MaskType> the mask type
+     * @return a node which resolves the combined mask with a single lookup
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, MaskType extends Mask<MaskType>>
+    ComparableNode<T, MaskType> merge(MaskStore<MaskType> store,
+                                      Comparator<T> comparator,
+                                      int wildcards,
+                                      ComparableNode<T, MaskType>[] nodes) {
+        var union = new TreeSet<T>(comparator);
+        for (var node : nodes) {
+            union.addAll(Arrays.asList(node.thresholds));
+        }
+        var merged = new ComparableNode<T, MaskType>(store, comparator, Operation.BETWEEN);
+        var thresholds = new ArrayList<T>(union.size());
+        int[] masks = new int[union.size()];
+        int[] gaps = new int[union.size()];
+        int count = 0;
+        int previous = merged.below = segment(store, wildcards, nodes, null, true, 0);
+        for (T threshold : union) {
+            int equal = segment(store, wildcards, nodes, threshold, false, previous);
+            int between = segment(store, wildcards, nodes, threshold, true, equal);
+            if (equal != previous || between != previous) {
+                thresholds.add(threshold);
+                masks[count] = equal;
+                gaps[count] = between;
+                ++count;
+            }
+            previous = between;
+        }
+        merged.thresholds = (T[]) thresholds.toArray();
+        merged.masks = Arrays.copyOf(masks, count);
+        merged.gaps = Arrays.copyOf(gaps, count);
+        merged.sets = null;
+        merged.above = null;
+        return merged;
+    }
+
     @Override
     public int match(T value) {
+        if (null == thresholds) {
+            return matchUnfrozen(value);
+        }
+        int position = Arrays.binarySearch(thresholds, value, comparator);
+        int insertionPoint = -(position + 1);
         switch (operation) {
-            case GE:
             case EQ:
+                return position >= 0 ? masks[position] : 0;
+            case GE:
+                return mask(position >= 0 ? position : insertionPoint - 1);
+            case GT:
+                return mask((position >= 0 ? position : insertionPoint) - 1);
             case LE:
-                return sets.getOrDefault(value, 0);
+                return mask(position >= 0 ? position : insertionPoint);
             case LT:
-                var higher = sets.higherEntry(value);
-                return null == higher ? 0 : higher.getValue();
-            case GT:
-                var lower = sets.lowerEntry(value);
-                return null == lower ? 0 : lower.getValue();
+                return mask(position >= 0 ? position + 1 : insertionPoint);
+            case BETWEEN:
+                if (position >= 0) {
+                    return masks[position];
+                }
+                return insertionPoint == 0 ? below : gaps[insertionPoint - 1];
             default:
                 return 0;
         }
     }
 
+    /**
+     * Encodes the ranges and replaces the tree with sorted arrays, which
+     * are searched with the comparator without boxing or map entries.
+     *
+     * @return the frozen node
+     */
+    @SuppressWarnings("unchecked")
     public ComparableNode<T, MaskType> freeze() {
         switch (operation) {
             case GE:
             case GT:
                 rangeEncode();
-                return this;
+                break;
             case LE:
             case LT:
                 reverseRangeEncode();
-                return this;
+                break;
             default:
-                return this;
         }
+        thresholds = (T[]) sets.keySet().toArray();
+        masks = sets.values().stream().mapToInt(Integer::intValue).toArray();
+        if (null != above) {
+            gaps = above.values().stream().mapToInt(Integer::intValue).toArray();
+        }
+        sets = null;
+        above = null;
+        return this;
     }
 
     public double averageSelectivity() {
-        return store.averageSelectivity(sets.values().stream().mapToInt(Integer::intValue).toArray());
+        return store.averageSelectivity(masks);
+    }
+
+    private static <T, MaskType extends Mask<MaskType>>
+    int segment(MaskStore<MaskType> store, int wildcards, ComparableNode<T, MaskType>[] nodes,
+                T value, boolean above, int previous) {
+        MaskType mask = store.getTemp(wildcards);
+        for (var node : nodes) {
+            store.orInto(mask, above ? node.matchAbove(value) : node.match(value));
+        }
+        if (mask.isEmpty()) {
+            return 0;
+        }
+        if (0 != previous && mask.equals(store.getMask(previous))) {
+            return previous;
+        }
+        int id = store.storeMask(mask.clone());
+        store.optimise(id);
+        return id;
+    }
+
+    /**
+     * Matches the values strictly between a threshold and the next threshold
+     * of any node being merged with this node, or below all thresholds if
+     * the threshold is null.
+     */
+    private int matchAbove(T value) {
+        if (null == value) {
+            switch (operation) {
+                case LE:
+                case LT:
+                    return mask(0);
+                case BETWEEN:
+                    return below;
+                default:
+                    return 0;
+            }
+        }
+        int position = Arrays.binarySearch(thresholds, value, comparator);
+        int floor = position >= 0 ? position : -(position + 1) - 1;
+        switch (operation) {
+            case GE:
+            case GT:
+                return mask(floor);
+            case LE:
+            case LT:
+                return mask(floor + 1);
+            case BETWEEN:
+                return floor >= 0 ? gaps[floor] : below;
+            default:
+                return 0;
+        }
+    }
+
+    private int matchUnfrozen(T value) {
+        switch (operation) {
+            case EQ:
+                return sets.getOrDefault(value, 0);
+            case GE:
+                var floor = sets.floorEntry(value);
+                return null == floor ? 0 : floor.getValue();
+            case LE:
+                var ceiling = sets.ceilingEntry(value);
+                return null == ceiling ? 0 : ceiling.getValue();
+            case LT:
+                var higher = sets.higherEntry(value);
+                return null == higher ? 0 : higher.getValue();
+            case GT:
+                var lower = sets.lowerEntry(value);
+                return null == lower ? 0 : lower.getValue();
+            case BETWEEN:
+                var segment = sets.floorEntry(value);
+                if (null == segment) {
+                    return below;
+                }
+                return comparator.compare(segment.getKey(), value) == 0
+                        ? segment.getValue()
+                        : above.get(segment.getKey());
+            default:
+                return 0;
+        }
+    }
+
+    private int mask(int index) {
+        return index >= 0 && index < masks.length ? masks[index] : 0;
+    }
+
+    private void split(T value) {
+        if (!sets.containsKey(value)) {
+            // values equal to or just above the new threshold are in the
+            // same ranges as the values just above the previous threshold
+            var previous = above.floorEntry(value);
+            int equal = store.newMaskId();
+            int between = store.newMaskId();
+            if (null != previous) {
+                store.or(previous.getValue(), equal);
+                store.or(previous.getValue(), between);
+            }
+            sets.put(value, equal);
+            above.put(value, between);
+        }
     }
 
     private void rangeEncode() {
@@ -95,6 +309,11 @@ public class ComparableNode<T, MaskType extends Mask<MaskType>>
 
     @Override
     public String toString() {
-        return Nodes.toString(sets.size(), operation, sets);
+        if (null == thresholds) {
+            return Nodes.toString(sets.size(), operation, sets);
+        }
+        return Nodes.toString(thresholds.length, operation,
+                Arrays.asList(thresholds).iterator(),
+                Arrays.stream(masks).iterator());
     }
 }
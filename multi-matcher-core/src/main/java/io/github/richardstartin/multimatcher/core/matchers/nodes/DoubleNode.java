@@ -4,162 +4,118 @@ import io.github.richardstartin.multimatcher.core.Mask;
 import io.github.richardstartin.multimatcher.core.Operation;
 import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 
-import java.util.Arrays;
-
-import static io.github.richardstartin.multimatcher.core.matchers.SelectivityHeuristics.avgCardinality;
-
+import java.util.stream.IntStream;
+
+import static io.github.richardstartin.multimatcher.core.Utils.newArray;
+import static io.github.richardstartin.multimatcher.core.matchers.nodes.Search.sortable;
+import static io.github.richardstartin.multimatcher.core.matchers.nodes.Search.unsortable;
+
+/**
+ * Thresholds on doubles, which are stored as longs with the same order as
+ * {@link Double#compare(double, double)} and searched as a {@link LongNode}.
+ * This is a total order: -0.0 precedes 0.0, so they are not equal, and NaN
+ * is equal to itself and follows positive infinity, so it satisfies greater
+ * than constraints and ranges without an upper bound, but not ranges up to
+ * positive infinity.
+ *
+ * @param <MaskType> the mask type
+ */
 public class DoubleNode<MaskType extends Mask<MaskType>> {
 
-    private final Operation relation;
-    private final MaskStore<MaskType> store;
-
-    private double[] thresholds = new double[4];
-    private int[] sets;
-    private int count = 0;
+    private final LongNode<MaskType> node;
 
     public DoubleNode(MaskStore<MaskType> store, Operation relation) {
-        this.relation = relation;
-        this.store = store;
-        this.sets = new int[4];
+        this(new LongNode<>(store, relation));
     }
 
-    public void add(double value, int priority) {
-        if (count > 0 && value > thresholds[count - 1]) {
-            ensureCapacity();
-            int position = count;
-            int maskId = sets[position];
-            if (0 == maskId) {
-                maskId = store.newMaskId();
-            }
-            store.add(maskId, priority);
-            thresholds[position] = value;
-            sets[position] = maskId;
-            ++count;
-        } else {
-            int position = Arrays.binarySearch(thresholds, 0, count, value);
-            int insertionPoint = -(position + 1);
-            if (position < 0 && insertionPoint < count) {
-                ensureCapacity();
-                for (int i = count; i > insertionPoint; --i) {
-                    sets[i] = sets[i - 1];
-                    thresholds[i] = thresholds[i - 1];
-                }
-                int maskId = store.newMaskId();
-                store.add(maskId, priority);
-                sets[insertionPoint] = maskId;
-                thresholds[insertionPoint] = value;
-                ++count;
-            } else if (position < 0) {
-                ensureCapacity();
-                int maskId = store.newMaskId();
-                store.add(maskId, priority);
-                sets[count] = maskId;
-                thresholds[count] = value;
-                ++count;
-            } else {
-                store.add(sets[position], priority);
-            }
-        }
+    private DoubleNode(LongNode<MaskType> node) {
+        this.node = node;
     }
 
-    public int match(double value, int defaultValue) {
-        switch (relation) {
-            case GT:
-                return findRangeEncoded(value);
-            case GE:
-                return findRangeEncodedInclusive(value);
-            case LT:
-                return findReverseRangeEncoded(value);
-            case LE:
-                return findReverseRangeEncodedInclusive(value);
-            case EQ:
-                return findEqualityEncoded(value);
-            default:
-                return defaultValue;
-        }
+    /**
+     * @param value a value
+     * @return a long with the same order as the value in the order of the node
+     */
+    public static long encode(double value) {
+        return sortable(value);
     }
 
-
-    public double averageSelectivity() {
-        return store.averageSelectivity(sets);
+    /**
+     * @param encoded a value encoded by {@link #encode(double)}
+     * @return the value
+     */
+    public static double decode(long encoded) {
+        return unsortable(encoded);
     }
 
-    public DoubleNode<MaskType> optimise() {
-        switch (relation) {
-            case GE:
-            case GT:
-                rangeEncode();
-                break;
-            case LE:
-            case LT:
-                reverseRangeEncode();
-                break;
-            default:
-        }
-        trim();
-        return this;
+    /**
+     * @param value a value
+     * @return the next value in the order of the node, where 0.0 follows -0.0
+     */
+    public static double successor(double value) {
+        return unsortable(sortable(value) + 1);
     }
 
-    private int findEqualityEncoded(double value) {
-        int index = Arrays.binarySearch(thresholds, 0, count, value);
-        return index >= 0 ? sets[index] : 0;
+    /**
+     * @param value a value
+     * @return the previous value in the order of the node, where -0.0 precedes 0.0
+     */
+    public static double predecessor(double value) {
+        return unsortable(sortable(value) - 1);
     }
 
-    private int findRangeEncoded(double value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos : -(pos + 1)) - 1;
-        return index >= 0 && index < count ? sets[index] : 0;
-    }
-
-    private int findRangeEncodedInclusive(double value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos : -(pos + 1) - 1);
-        return index >= 0 && index < count ? sets[index] : 0;
-    }
-
-    private int findReverseRangeEncoded(double value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos + 1 : -(pos + 1));
-        return index >= 0 && index < count ? sets[index] : 0;
+    public void add(double value, int priority) {
+        node.add(sortable(value), priority);
     }
 
-    private int findReverseRangeEncodedInclusive(double value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos : -(pos + 1));
-        return index < count ? sets[index] : 0;
+    /**
+     * Adds a closed range, only valid for nodes with the relation BETWEEN.
+     *
+     * @param from     the inclusive lower bound
+     * @param to       the inclusive upper bound
+     * @param priority the identity named the constraint
+     */
+    public void addRange(double from, double to, int priority) {
+        node.addRange(sortable(from), sortable(to), priority);
     }
 
-    private void reverseRangeEncode() {
-        for (int i = count - 2; i >= 0; --i) {
-            store.or(sets[i + 1], sets[i]);
-            store.optimise(sets[i]);
+    /**
+     * Merges nodes into a single node with the relation BETWEEN, which finds
+     * the union of the wildcards and the masks matched by each node.
+     *
+     * @param store     the mask store
+     * @param wildcards the mask id of the constraints satisfied by any value
+     * @param nodes     the optimised nodes to merge
+     * @param <MaskType> the mask type
+     * @return a node which resolves the combined mask with a single lookup
+     */
+    @SuppressWarnings("unchecked")
+    public static <MaskType extends Mask<MaskType>>
+    DoubleNode<MaskType> merge(MaskStore<MaskType> store, int wildcards, DoubleNode<MaskType>[] nodes) {
+        var encoded = (LongNode<MaskType>[]) newArray(LongNode.class, nodes.length);
+        for (int i = 0; i < nodes.length; ++i) {
+            encoded[i] = nodes[i].node;
         }
+        return new DoubleNode<>(LongNode.merge(store, wildcards, encoded));
     }
 
-    private void rangeEncode() {
-        for (int i = 1; i < count; ++i) {
-            store.or(sets[i - 1], sets[i]);
-            store.optimise(sets[i]);
-        }
+    public int match(double value, int defaultValue) {
+        return node.match(sortable(value), defaultValue);
     }
 
-    private void trim() {
-        sets = Arrays.copyOf(sets, count);
-        thresholds = Arrays.copyOf(thresholds, count);
+    public double averageSelectivity() {
+        return node.averageSelectivity();
     }
 
-    private void ensureCapacity() {
-        int newCount = count + 1;
-        if (newCount == thresholds.length) {
-            sets = Arrays.copyOf(sets, newCount * 2);
-            thresholds = Arrays.copyOf(thresholds, newCount * 2);
-        }
+    public DoubleNode<MaskType> optimise() {
+        node.optimise();
+        return this;
     }
 
     @Override
     public String toString() {
-        return Nodes.toString(count, relation,
-                Arrays.stream(thresholds).boxed().iterator(),
-                Arrays.stream(sets).iterator());
+        return Nodes.toString(node.size(), node.relation(),
+                IntStream.range(0, node.size()).mapToObj(i -> unsortable(node.threshold(i))).iterator(),
+                IntStream.range(0, node.size()).map(node::maskId).iterator());
     }
 }
@@ -0,0 +1,71 @@
+package io.github.richardstartin.multimatcher.core.matchers.nodes;
+
+/**
+ * Helpers for laying out sorted thresholds in breadth first (Eytzinger) order,
+ * where the children of slot k are in slots 2k and 2k + 1. Searching this
+ * layout visits slots in increasing order and the first few levels of the
+ * tree share cache lines, and each step only chooses the next slot, so the
+ * comparison can be compiled without a branch.
+ */
+final class Eytzinger {
+
+    /**
+     * Below this many thresholds, the sorted array fits in a few cache lines
+     * and binary search is at least as fast.
+     */
+    static final int MIN_SIZE = 256;
+
+    private Eytzinger() {
+    }
+
+    /**
+     * Computes the position in sorted order of each slot in the layout.
+     *
+     * @param count the number of sorted values
+     * @return the sorted positions, indexed by slot, where slot 0 is unused
+     */
+    static int[] ranks(int count) {
+        int[] ranks = new int[count + 1];
+        fill(ranks, 0, 1, count);
+        return ranks;
+    }
+
+    /**
+     * Precomputes the mask id to return when the search terminates, indexed
+     * by the slot of the first threshold greater than the value, or zero
+     * when there is no such threshold.
+     *
+     * @param ranks the sorted positions of each slot
+     * @param sets  the mask ids in sorted order
+     * @param count the number of thresholds
+     * @return the mask ids of the greatest threshold less than or equal to the value
+     */
+    static int[] floorSets(int[] ranks, int[] sets, int count) {
+        int[] floorSets = new int[count + 1];
+        for (int slot = 0; slot <= count; ++slot) {
+            int floor = (slot == 0 ? count : ranks[slot]) - 1;
+            floorSets[slot] = floor >= 0 ? sets[floor] : 0;
+        }
+        return floorSets;
+    }
+
+    /**
+     * Recovers the slot where the search last moved to a left child,
+     * which is the slot of the first threshold greater than the value.
+     *
+     * @param slot the slot the search terminated at
+     * @return the slot of the successor, or zero
+     */
+    static int successor(int slot) {
+        return slot >>> (Integer.numberOfTrailingZeros(~slot) + 1);
+    }
+
+    private static int fill(int[] ranks, int rank, int slot, int count) {
+        if (slot <= count) {
+            rank = fill(ranks, rank, 2 * slot, count);
+            ranks[slot] = rank++;
+            rank = fill(ranks, rank, 2 * slot + 1, count);
+        }
+        return rank;
+    }
+}
@@ -10,12 +10,28 @@ import static io.github.richardstartin.multimatcher.core.matchers.SelectivityHeu
 
 public class IntNode<MaskType extends Mask<MaskType>> {
 
+    /**
+     * The widest range of thresholds a merged node will expand into a
+     * table with an entry for every value.
+     */
+    private static final int MAX_DENSE_SPAN = 1 << 12;
+
+    /**
+     * The most table entries a merged node will spend on each segment, so
+     * only clustered thresholds are expanded into a table.
+     */
+    private static final int MAX_DENSE_ENTRIES_PER_SEGMENT = 16;
+
     private final Operation relation;
     private final MaskStore<MaskType> store;
 
     private int[] thresholds = new int[4];
     private int[] sets;
     private int count = 0;
+    private int[] eytzinger;
+    private int[] eytzingerSets;
+    private int denseMin;
+    private int[] dense;
 
     public IntNode(MaskStore<MaskType> store, Operation relation) {
         this.relation = relation;
@@ -62,6 +78,95 @@ public class IntNode<MaskType extends Mask<MaskType>> {
         }
     }
 
+    /**
+     * Adds a closed range, only valid for nodes with the relation BETWEEN.
+     * The node stores the start of each segment the ranges partition the
+     * values into, so a single lookup finds all the ranges containing a value.
+     *
+     * @param from     the inclusive lower bound
+     * @param to       the inclusive upper bound
+     * @param priority the identity named the constraint
+     */
+    public void addRange(int from, int to, int priority) {
+        int first = split(from);
+        int last = to == Integer.MAX_VALUE ? count : split(to + 1);
+        for (int i = first; i < last; ++i) {
+            store.add(sets[i], priority);
+        }
+    }
+
+    /**
+     * Merges nodes into a single node with the relation BETWEEN, which finds
+     * the union of the wildcards and the masks matched by each node with a
+     * single lookup. A node's result can only change at one of its thresholds
+     * or immediately after one, so these values are the only segment starts
+     * needed, and adjacent segments with the same mask are coalesced. When the
+     * thresholds are clustered in a narrow range, the lookup is a load from a
+     * table indexed by the value rather than a search.
+     *
+     * @param store     the mask store
+     * @param wildcards the mask id of the constraints satisfied by any value
+     * @param nodes     the optimised nodes to merge
+     * @param <MaskType> the mask type
+     * @return a node which resolves the combined mask with a single lookup
+     */
+    public static <MaskType extends Mask<MaskType>>
+    IntNode<MaskType> merge(MaskStore<MaskType> store, int wildcards, IntNode<MaskType>[] nodes) {
+        int size = 1;
+        for (var node : nodes) {
+            size += 2 * node.count;
+        }
+        int[] boundaries = new int[size];
+        int count = 0;
+        boundaries[count++] = Integer.MIN_VALUE;
+        for (var node : nodes) {
+            for (int i = 0; i < node.count; ++i) {
+                int threshold = node.thresholds[i];
+                boundaries[count++] = threshold;
+                if (threshold != Integer.MAX_VALUE) {
+                    boundaries[count++] = threshold + 1;
+                }
+            }
+        }
+        Arrays.sort(boundaries, 0, count);
+        var merged = new IntNode<>(store, Operation.BETWEEN);
+        merged.thresholds = new int[count];
+        merged.sets = new int[count];
+        for (int i = 0; i < count; ++i) {
+            int value = boundaries[i];
+            if (i > 0 && value == boundaries[i - 1]) {
+                continue;
+            }
+            MaskType mask = store.getTemp(wildcards);
+            for (var node : nodes) {
+                store.orInto(mask, node.match(value, 0));
+            }
+            boolean empty = mask.isEmpty();
+            if (merged.count > 0) {
+                int previous = merged.sets[merged.count - 1];
+                if (empty ? 0 == previous : mask.equals(store.getMask(previous))) {
+                    continue;
+                }
+            }
+            merged.thresholds[merged.count] = value;
+            merged.sets[merged.count] = empty ? 0 : store.storeMask(mask.clone());
+            ++merged.count;
+        }
+        for (int i = 0; i < merged.count; ++i) {
+            if (0 != merged.sets[i]) {
+                store.optimise(merged.sets[i]);
+            }
+        }
+        merged.trim();
+        long maxSpan = Math.min(MAX_DENSE_SPAN, (long) MAX_DENSE_ENTRIES_PER_SEGMENT * merged.count);
+        if (merged.count > 1 && (long) merged.thresholds[merged.count - 1] - merged.thresholds[1] < maxSpan) {
+            merged.denseLayout();
+        } else if (merged.count >= Eytzinger.MIN_SIZE) {
+            merged.eytzingerLayout();
+        }
+        return merged;
+    }
+
     public int match(int value, int defaultValue) {
         switch (relation) {
             case GT:
@@ -74,12 +179,36 @@ public class IntNode<MaskType extends Mask<MaskType>> {
                 return findReverseRangeEncodedInclusive(value);
             case EQ:
                 return findEqualityEncoded(value);
+            case BETWEEN:
+                if (null != dense) {
+                    return findDense(value);
+                }
+                return null == eytzinger ? findRangeEncodedInclusive(value) : findEytzinger(value);
             default:
                 return defaultValue;
         }
     }
 
 
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return true if the node is looked up in a table indexed by the value
+     */
+    public boolean isDense() {
+        return null != dense;
+    }
+
+    public int threshold(int index) {
+        return thresholds[index];
+    }
+
+    public int maskId(int index) {
+        return sets[index];
+    }
+
     public double averageSelectivity() {
         return store.averageSelectivity(sets);
     }
@@ -101,34 +230,92 @@ public class IntNode<MaskType extends Mask<MaskType>> {
     }
 
     private int findEqualityEncoded(int value) {
-        int index = Arrays.binarySearch(thresholds, 0, count, value);
-        return index >= 0 ? sets[index] : 0;
+        int index = Search.floor(thresholds, count, value);
+        return index >= 0 && thresholds[index] == value ? sets[index] : 0;
     }
 
     private int findRangeEncoded(int value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos : -(pos + 1)) - 1;
-        return index >= 0 && index < count ? sets[index] : 0;
+        int index = Search.lower(thresholds, count, value);
+        return index >= 0 ? sets[index] : 0;
     }
 
     private int findRangeEncodedInclusive(int value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos : -(pos + 1) - 1);
-        return index >= 0 && index < count ? sets[index] : 0;
+        int index = Search.floor(thresholds, count, value);
+        return index >= 0 ? sets[index] : 0;
     }
 
     private int findReverseRangeEncoded(int value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos + 1 : -(pos + 1));
-        return index >= 0 && index < count ? sets[index] : 0;
+        int index = Search.floor(thresholds, count, value) + 1;
+        return index < count ? sets[index] : 0;
     }
 
     private int findReverseRangeEncodedInclusive(int value) {
-        int pos = Arrays.binarySearch(thresholds, 0, count, value);
-        int index = (pos >= 0 ? pos : -(pos + 1));
+        int index = Search.lower(thresholds, count, value) + 1;
         return index < count ? sets[index] : 0;
     }
 
+    private int findEytzinger(int value) {
+        int[] layout = eytzinger;
+        int k = 1;
+        while (k < layout.length) {
+            k = 2 * k + (layout[k] <= value ? 1 : 0);
+        }
+        return eytzingerSets[Eytzinger.successor(k)];
+    }
+
+    private int findDense(int value) {
+        // values outside the table wrap around to offsets greater than its length
+        int offset = value - denseMin;
+        if (Integer.compareUnsigned(offset, dense.length) < 0) {
+            return dense[offset];
+        }
+        return value < denseMin ? sets[0] : sets[count - 1];
+    }
+
+    /**
+     * The first segment starts at the minimum value and the last extends to the
+     * maximum, so only the values between the second and last thresholds need
+     * to be in the table.
+     */
+    private void denseLayout() {
+        denseMin = thresholds[1];
+        dense = new int[thresholds[count - 1] - denseMin];
+        for (int i = 1; i < count - 1; ++i) {
+            Arrays.fill(dense, thresholds[i] - denseMin, thresholds[i + 1] - denseMin, sets[i]);
+        }
+    }
+
+    private void eytzingerLayout() {
+        int[] ranks = Eytzinger.ranks(count);
+        eytzinger = new int[count + 1];
+        for (int slot = 1; slot <= count; ++slot) {
+            eytzinger[slot] = thresholds[ranks[slot]];
+        }
+        eytzingerSets = Eytzinger.floorSets(ranks, sets, count);
+    }
+
+    private int split(int value) {
+        int position = Arrays.binarySearch(thresholds, 0, count, value);
+        if (position >= 0) {
+            return position;
+        }
+        int insertionPoint = -(position + 1);
+        ensureCapacity();
+        for (int i = count; i > insertionPoint; --i) {
+            sets[i] = sets[i - 1];
+            thresholds[i] = thresholds[i - 1];
+        }
+        // the new segment starts off with the ranges of the segment it was split from
+        int maskId = store.newMaskId();
+        if (insertionPoint > 0) {
+            store.or(sets[insertionPoint - 1], maskId);
+        }
+        sets[insertionPoint] = maskId;
+        thresholds[insertionPoint] = value;
+        ++count;
+        return insertionPoint;
+    }
+
     private void reverseRangeEncode() {
         for (int i = count - 2; i >= 0; --i) {
             store.or(sets[i + 1], sets[i]);
@@ -0,0 +1,140 @@
+package io.github.richardstartin.multimatcher.core.matchers.nodes;
+
+/**
+ * Searches sorted thresholds for the nodes of every primitive type. Doubles
+ * are encoded as longs which sort in the same order, so double and long
+ * nodes share the same search. The searches return the position of the
+ * segment containing the value directly, rather than decoding the insertion
+ * point returned by {@link java.util.Arrays#binarySearch(long[], long)}, and
+ * don't stop early on equal values, which is faster for the small nodes which
+ * aren't in the Eytzinger layout.
+ */
+final class Search {
+
+    private Search() {
+    }
+
+    /**
+     * Encodes a double as a long with the same order as {@link Double#compare(double, double)},
+     * by flipping the bits other than the sign bit of negative values. -0.0 precedes 0.0,
+     * and NaN follows positive infinity, because NaN is always encoded as the canonical NaN.
+     * The encoding is its own inverse. Consecutive encodings are adjacent doubles in that order.
+     *
+     * @param value the value
+     * @return the sortable encoding of the value
+     */
+    static long sortable(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Decodes a double encoded by {@link #sortable(double)}.
+     *
+     * @param encoded the encoded value
+     * @return the value
+     */
+    static double unsortable(long encoded) {
+        return Double.longBitsToDouble(encoded ^ ((encoded >> 63) & Long.MAX_VALUE));
+    }
+
+    /**
+     * @param thresholds the sorted thresholds
+     * @param count      the number of thresholds
+     * @param value      the value
+     * @return the position of the greatest threshold less than or equal to the value, or -1
+     */
+    static int floor(long[] thresholds, int count, long value) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param thresholds the sorted thresholds
+     * @param count      the number of thresholds
+     * @param value      the value
+     * @return the position of the greatest threshold less than the value, or -1
+     */
+    static int lower(long[] thresholds, int count, long value) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param thresholds the sorted thresholds
+     * @param count      the number of thresholds
+     * @param value      the value
+     * @return the position of the greatest threshold less than or equal to the value, or -1
+     */
+    static int floor(int[] thresholds, int count, int value) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param thresholds the sorted thresholds
+     * @param count      the number of thresholds
+     * @param value      the value
+     * @return the position of the greatest threshold less than the value, or -1
+     */
+    static int lower(int[] thresholds, int count, int value) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param thresholds the sorted thresholds
+     * @param count      the number of thresholds
+     * @param value      the value
+     * @return the position of the greatest threshold less than or equal to the value, or -1
+     */
+    static int floor(short[] thresholds, int count, short value) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.richardstartin.multimatcher.core.matchers.nodes;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Operation;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The merged segments of an {@link IntNode} over attributes with at most
+ * 2^16 possible values, such as shorts, chars and bytes, where each threshold
+ * is stored as a short offset from the least value. This halves the size of
+ * the thresholds, so twice as many fit in each cache line searched.
+ *
+ * @param <MaskType> the mask type
+ */
+public class ShortNode<MaskType extends Mask<MaskType>> {
+
+    /**
+     * The most values an attribute can have for its thresholds to fit in shorts.
+     */
+    public static final int MAX_DOMAIN_SIZE = 1 << 16;
+
+    private final MaskStore<MaskType> store;
+    private final int minValue;
+    private final short[] thresholds;
+    private final int[] sets;
+
+    private ShortNode(MaskStore<MaskType> store, int minValue, short[] thresholds, int[] sets) {
+        this.store = store;
+        this.minValue = minValue;
+        this.thresholds = thresholds;
+        this.sets = sets;
+    }
+
+    /**
+     * Copies the segments of a merged node which fall within the domain of the
+     * attribute. Segments starting below the least value are clamped to it, and
+     * segments starting above the greatest value can't be matched.
+     *
+     * @param store      the mask store
+     * @param node       a node produced by {@link IntNode#merge}
+     * @param minValue   the least value the attribute can have
+     * @param maxValue   the greatest value the attribute can have
+     * @param <MaskType> the mask type
+     * @return the segments of the node with short thresholds
+     */
+    public static <MaskType extends Mask<MaskType>>
+    ShortNode<MaskType> narrow(MaskStore<MaskType> store, IntNode<MaskType> node, int minValue, int maxValue) {
+        if ((long) maxValue - minValue >= MAX_DOMAIN_SIZE) {
+            throw new IllegalArgumentException("[" + minValue + ", " + maxValue + "] has too many values for shorts");
+        }
+        short[] thresholds = new short[node.size()];
+        int[] sets = new int[node.size()];
+        int count = 0;
+        for (int i = 0; i < node.size() && node.threshold(i) <= maxValue; ++i) {
+            short threshold = encode(Math.max(node.threshold(i), minValue), minValue);
+            // only the last segment starting at or below the least value can be matched
+            if (count > 0 && thresholds[count - 1] == threshold) {
+                --count;
+            }
+            thresholds[count] = threshold;
+            sets[count] = node.maskId(i);
+            ++count;
+        }
+        return new ShortNode<>(store, minValue, Arrays.copyOf(thresholds, count), Arrays.copyOf(sets, count));
+    }
+
+    /**
+     * @param value a value of the attribute
+     * @return the mask id of the segment containing the value
+     */
+    public int match(int value) {
+        int index = Search.floor(thresholds, thresholds.length, encode(value, minValue));
+        return index >= 0 ? sets[index] : 0;
+    }
+
+    public int size() {
+        return thresholds.length;
+    }
+
+    public double averageSelectivity() {
+        return store.averageSelectivity(sets);
+    }
+
+    private static short encode(int value, int minValue) {
+        // shifts the domain so the offsets sort in the same order as shorts
+        return (short) (value - minValue + Short.MIN_VALUE);
+    }
+
+    private int decode(short threshold) {
+        return threshold - Short.MIN_VALUE + minValue;
+    }
+
+    @Override
+    public String toString() {
+        return Nodes.toString(thresholds.length, Operation.BETWEEN,
+                IntStream.range(0, thresholds.length).map(i -> decode(thresholds[i])).iterator(),
+                Arrays.stream(sets).iterator());
+    }
+}
@@ -2,6 +2,7 @@ package io.github.richardstartin.multimatcher.core.schema;
 
 import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
 import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.MissingValuePolicy;
 import io.github.richardstartin.multimatcher.core.masks.MaskStore;
 
 /**
@@ -19,4 +20,14 @@ public interface Attribute<T> {
      */
     <MaskType extends Mask<MaskType>>
     ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max);
+
+    /**
+     * Applies a missing value policy to the attribute
+     *
+     * @param policy how missing values are matched
+     * @return the attribute with the policy, or this attribute if its values can't be missing
+     */
+    default Attribute<T> withMissingValues(MissingValuePolicy policy) {
+        return this;
+    }
 }
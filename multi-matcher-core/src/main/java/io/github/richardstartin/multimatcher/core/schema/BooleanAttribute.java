@@ -0,0 +1,23 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.BooleanConstraintAccumulator;
+
+import java.util.function.Predicate;
+
+public class BooleanAttribute<Input> implements Attribute<Input> {
+
+    private final Predicate<Input> predicate;
+
+    public BooleanAttribute(Predicate<Input> predicate) {
+        this.predicate = predicate;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<Input, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new BooleanConstraintAccumulator<>(predicate, maskStore, max);
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.IntMatcher;
+
+/**
+ * Creates a column of constraints with byte semantics, matched by looking
+ * up the mask of every possible value
+ *
+ * @param <T> the type of the classified objects
+ */
+public class ByteAttribute<T> implements Attribute<T> {
+
+    private final ToByteFunction<T> accessor;
+
+    public ByteAttribute(ToByteFunction<T> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new IntMatcher<>(accessor::applyAsByte, maskStore, max, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.CaseInsensitiveStringConstraintAccumulator;
+
+import java.util.function.Function;
+
+public class CaseInsensitiveStringAttribute<Input> implements Attribute<Input> {
+
+    private final Function<Input, String> accessor;
+
+    public CaseInsensitiveStringAttribute(Function<Input, String> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<Input, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new CaseInsensitiveStringConstraintAccumulator<>(accessor, maskStore, max);
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.ConvertingConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.matchers.IntMatcher;
+
+/**
+ * Creates a column of constraints with char semantics, matched as ints
+ * against thresholds stored as shorts, where the values in the rules may
+ * be characters or numbers
+ *
+ * @param <T> the type of the classified objects
+ */
+public class CharAttribute<T> implements Attribute<T> {
+
+    private final ToCharFunction<T> accessor;
+
+    public CharAttribute(ToCharFunction<T> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new ConvertingConstraintAccumulator<>(
+                new IntMatcher<>(accessor::applyAsChar, maskStore, max, Character.MIN_VALUE, Character.MAX_VALUE),
+                value -> value instanceof Character ? (int) (Character) value : ((Number) value).intValue());
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.CharSequenceConstraintAccumulator;
+
+import java.util.function.Function;
+
+public class CharSequenceAttribute<Input> implements Attribute<Input> {
+
+    private final Function<Input, CharSequence> accessor;
+
+    public CharSequenceAttribute(Function<Input, CharSequence> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<Input, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new CharSequenceConstraintAccumulator<>(accessor, maskStore, max);
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.CompositeConstraintAccumulator;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static io.github.richardstartin.multimatcher.core.Utils.newArray;
+
+/**
+ * Creates a column of constraints with equality semantics only on tuples of values
+ *
+ * @param <T> the type of the classified objects
+ */
+public class CompositeAttribute<T> implements Attribute<T> {
+
+    private final List<Function<T, ?>> accessors;
+
+    public CompositeAttribute(List<Function<T, ?>> accessors) {
+        this.accessors = List.copyOf(accessors);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        var array = (Function<T, ?>[]) newArray(Function.class, accessors.size());
+        return new CompositeConstraintAccumulator<>(accessors.toArray(array), maskStore, max);
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import java.util.function.Function;
+
+/**
+ * A value derived from the classified object, such as a parsed document,
+ * which is computed at most once per classification however many
+ * attributes are extracted from it. The value is cached in the
+ * {@link io.github.richardstartin.multimatcher.core.MatchContext} of the
+ * classification, so caching it doesn't allocate.
+ *
+ * @param <T> the type of the classified objects
+ * @param <D> the type of the derived value
+ */
+public class Derived<T, D> implements Function<T, D> {
+
+    private final Function<T, D> derivation;
+
+    public Derived(Function<T, D> derivation) {
+        this.derivation = derivation;
+    }
+
+    @Override
+    public D apply(T input) {
+        return derivation.apply(input);
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.MissingValuePolicy;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.DerivingConstraintAccumulator;
+
+/**
+ * Creates a column of constraints on an attribute of a value derived from
+ * the classified objects, with the semantics of the attribute
+ *
+ * @param <T> the type of the classified objects
+ * @param <D> the type of the derived value
+ */
+public class DerivedAttribute<T, D> implements Attribute<T> {
+
+    private final Derived<T, D> derived;
+    private final Attribute<D> attribute;
+
+    public DerivedAttribute(Derived<T, D> derived, Attribute<D> attribute) {
+        this.derived = derived;
+        this.attribute = attribute;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new DerivingConstraintAccumulator<>(derived, attribute.newAccumulator(maskStore, max));
+    }
+
+    @Override
+    public Attribute<T> withMissingValues(MissingValuePolicy policy) {
+        return new DerivedAttribute<>(derived, attribute.withMissingValues(policy));
+    }
+}
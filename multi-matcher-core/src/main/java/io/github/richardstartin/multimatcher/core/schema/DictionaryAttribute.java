@@ -0,0 +1,26 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.StringDictionary;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.DictionaryConstraintAccumulator;
+
+import java.util.function.ToIntFunction;
+
+public class DictionaryAttribute<Input> implements Attribute<Input> {
+
+    private final StringDictionary dictionary;
+    private final ToIntFunction<Input> accessor;
+
+    public DictionaryAttribute(StringDictionary dictionary, ToIntFunction<Input> accessor) {
+        this.dictionary = dictionary;
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<Input, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new DictionaryConstraintAccumulator<>(dictionary, accessor, maskStore, max);
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.ConvertingConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.matchers.IntMatcher;
+
+/**
+ * Creates a column of constraints with float semantics, where the values in
+ * the rules are rounded to float precision. Floats are encoded as ints with
+ * the same order as {@link Float#compare(float, float)} and matched by an
+ * {@link IntMatcher}, so thresholds take half the space of doubles. As for
+ * doubles, -0.0 precedes 0.0 and NaN follows positive infinity, and
+ * exclusive bounds step to the adjacent float.
+ *
+ * @param <T> the type of the classified objects
+ */
+public class FloatAttribute<T> implements Attribute<T> {
+
+    private final ToFloatFunction<T> accessor;
+
+    public FloatAttribute(ToFloatFunction<T> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new ConvertingConstraintAccumulator<>(
+                new IntMatcher<>(value -> sortable(accessor.applyAsFloat(value)), maskStore, max),
+                value -> sortable(((Number) value).floatValue()));
+    }
+
+    /**
+     * Flips the non-sign bits of negative floats, so the encodings of adjacent
+     * floats are adjacent ints. NaN is canonicalised by floatToIntBits.
+     *
+     * @param value a value
+     * @return the sortable encoding of the value
+     */
+    static int sortable(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+}
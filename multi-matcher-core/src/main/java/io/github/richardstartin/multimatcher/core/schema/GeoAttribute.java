@@ -0,0 +1,30 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.GeoConstraintAccumulator;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Creates a column of bounding box constraints on points
+ *
+ * @param <T> the type of the classified objects
+ */
+public class GeoAttribute<T> implements Attribute<T> {
+
+    private final ToDoubleFunction<T> latitude;
+    private final ToDoubleFunction<T> longitude;
+
+    public GeoAttribute(ToDoubleFunction<T> latitude, ToDoubleFunction<T> longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new GeoConstraintAccumulator<>(latitude, longitude, maskStore, max);
+    }
+}
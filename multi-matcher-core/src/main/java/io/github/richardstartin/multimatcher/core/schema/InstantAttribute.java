@@ -0,0 +1,60 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.ConvertingConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.matchers.LongMatcher;
+
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Creates a column of constraints with equality and order semantics on instants, encoded as
+ * nanoseconds since the epoch, so values are compared as primitive longs. Only instants
+ * between 1677 and 2262 can be represented, so rules with instants outside this range are
+ * rejected, and classified instants outside it saturate to the least or greatest long,
+ * which orders them correctly with respect to every rule
+ *
+ * @param <T> the type of the classified objects
+ */
+public class InstantAttribute<T> implements Attribute<T> {
+
+    private static final long MAX_SECONDS = Long.MAX_VALUE / 1_000_000_000L;
+    private static final long MIN_SECONDS = Long.MIN_VALUE / 1_000_000_000L;
+
+    private final Function<T, Instant> accessor;
+
+    public InstantAttribute(Function<T, Instant> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new ConvertingConstraintAccumulator<>(
+                new LongMatcher<>(input -> encode(accessor.apply(input)), maskStore, max),
+                InstantAttribute::threshold);
+    }
+
+    private static long threshold(Object value) {
+        long encoded = encode(value);
+        if (encoded == Long.MIN_VALUE || encoded == Long.MAX_VALUE) {
+            throw new IllegalArgumentException(value + " is outside the range of instants which can be matched, ["
+                    + Instant.ofEpochSecond(MIN_SECONDS + 1) + ", " + Instant.ofEpochSecond(MAX_SECONDS) + ")");
+        }
+        return encoded;
+    }
+
+    private static long encode(Object value) {
+        var instant = (Instant) value;
+        long seconds = instant.getEpochSecond();
+        if (seconds >= MAX_SECONDS) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= MIN_SECONDS) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1_000_000_000L + instant.getNano();
+    }
+}
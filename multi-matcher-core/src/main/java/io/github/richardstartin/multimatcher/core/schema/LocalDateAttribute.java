@@ -0,0 +1,37 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.ConvertingConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.matchers.LongMatcher;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Creates a column of constraints with equality and order semantics on dates, encoded as days since the epoch,
+ * so values are compared as primitive longs
+ *
+ * @param <T> the type of the classified objects
+ */
+public class LocalDateAttribute<T> implements Attribute<T> {
+
+    private final Function<T, LocalDate> accessor;
+
+    public LocalDateAttribute(Function<T, LocalDate> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new ConvertingConstraintAccumulator<>(
+                new LongMatcher<>(input -> encode(accessor.apply(input)), maskStore, max),
+                LocalDateAttribute::encode);
+    }
+
+    private static long encode(Object value) {
+        return ((LocalDate) value).toEpochDay();
+    }
+}
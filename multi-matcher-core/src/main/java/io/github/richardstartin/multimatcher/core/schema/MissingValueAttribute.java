@@ -0,0 +1,52 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.MissingValuePolicy;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.MissingValueConstraintAccumulator;
+
+import java.util.function.Function;
+
+/**
+ * Creates a column of constraints on an attribute whose values may be
+ * missing, which are matched according to a policy before the value is
+ * passed to the attribute
+ *
+ * @param <T> the type of the classified objects
+ * @param <V> the type of the attribute values
+ */
+public class MissingValueAttribute<T, V> implements Attribute<T> {
+
+    private final Function<T, ? extends V> accessor;
+    private final Attribute<V> attribute;
+    private final MissingValuePolicy policy;
+
+    /**
+     * @param accessor  extracts the value from the classified object
+     * @param attribute the attribute of the value, which is only passed values which are present
+     */
+    public MissingValueAttribute(Function<T, ? extends V> accessor, Attribute<V> attribute) {
+        this(accessor, attribute, MissingValuePolicy.AS_VALUE);
+    }
+
+    private MissingValueAttribute(Function<T, ? extends V> accessor,
+                                  Attribute<V> attribute,
+                                  MissingValuePolicy policy) {
+        this.accessor = accessor;
+        this.attribute = attribute;
+        this.policy = policy;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new MissingValueConstraintAccumulator<>(accessor, attribute.newAccumulator(maskStore, max),
+                policy, maskStore, max);
+    }
+
+    @Override
+    public Attribute<T> withMissingValues(MissingValuePolicy policy) {
+        return new MissingValueAttribute<>(accessor, attribute, policy);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.MultiValuedConstraintAccumulator;
+
+import java.util.function.Function;
+
+/**
+ * Creates a column of constraints on several values with equality semantics only
+ *
+ * @param <T> the type of the classified objects
+ * @param <U> the type of the values
+ */
+public class MultiValuedAttribute<T, U> implements Attribute<T> {
+
+    private final Function<T, ?> accessor;
+
+    /**
+     * @param accessor extracts the values from the input, as an Iterable or an array
+     */
+    public MultiValuedAttribute(Function<T, ?> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new MultiValuedConstraintAccumulator<>(accessor, maskStore, max);
+    }
+}
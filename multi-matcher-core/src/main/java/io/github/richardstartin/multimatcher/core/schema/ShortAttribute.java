@@ -0,0 +1,27 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.IntMatcher;
+
+/**
+ * Creates a column of constraints with short semantics, matched as ints
+ * against thresholds stored as shorts
+ *
+ * @param <T> the type of the classified objects
+ */
+public class ShortAttribute<T> implements Attribute<T> {
+
+    private final ToShortFunction<T> accessor;
+
+    public ShortAttribute(ToShortFunction<T> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<T, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new IntMatcher<>(accessor::applyAsShort, maskStore, max, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+}
@@ -10,14 +10,20 @@ import java.util.function.Function;
 public class StringAttribute<Input> implements Attribute<Input> {
 
     private final Function<Input, String> accessor;
+    private final boolean sparse;
 
     public StringAttribute(Function<Input, String> accessor) {
+        this(accessor, false);
+    }
+
+    public StringAttribute(Function<Input, String> accessor, boolean sparse) {
         this.accessor = accessor;
+        this.sparse = sparse;
     }
 
     @Override
     public <MaskType extends Mask<MaskType>>
     ConstraintAccumulator<Input, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
-        return new StringConstraintAccumulator<>(accessor, maskStore, max);
+        return new StringConstraintAccumulator<>(accessor, maskStore, max, sparse);
     }
 }
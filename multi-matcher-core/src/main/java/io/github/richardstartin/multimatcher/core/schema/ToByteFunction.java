@@ -0,0 +1,12 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+/**
+ * Produces a byte-valued result, like {@link java.util.function.ToIntFunction}
+ *
+ * @param <T> the type of the input
+ */
+@FunctionalInterface
+public interface ToByteFunction<T> {
+
+    byte applyAsByte(T value);
+}
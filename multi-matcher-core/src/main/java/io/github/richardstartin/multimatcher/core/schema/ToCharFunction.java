@@ -0,0 +1,12 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+/**
+ * Produces a char-valued result, like {@link java.util.function.ToIntFunction}
+ *
+ * @param <T> the type of the input
+ */
+@FunctionalInterface
+public interface ToCharFunction<T> {
+
+    char applyAsChar(T value);
+}
@@ -0,0 +1,12 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+/**
+ * Produces a short-valued result, like {@link java.util.function.ToIntFunction}
+ *
+ * @param <T> the type of the input
+ */
+@FunctionalInterface
+public interface ToShortFunction<T> {
+
+    short applyAsShort(T value);
+}
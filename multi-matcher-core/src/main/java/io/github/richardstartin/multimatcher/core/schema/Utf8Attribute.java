@@ -0,0 +1,24 @@
+package io.github.richardstartin.multimatcher.core.schema;
+
+import io.github.richardstartin.multimatcher.core.ConstraintAccumulator;
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.Utf8ConstraintAccumulator;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+public class Utf8Attribute<Input> implements Attribute<Input> {
+
+    private final Function<Input, ByteBuffer> accessor;
+
+    public Utf8Attribute(Function<Input, ByteBuffer> accessor) {
+        this.accessor = accessor;
+    }
+
+    @Override
+    public <MaskType extends Mask<MaskType>>
+    ConstraintAccumulator<Input, MaskType> newAccumulator(MaskStore<MaskType> maskStore, int max) {
+        return new Utf8ConstraintAccumulator<>(accessor, maskStore, max);
+    }
+}
@@ -8,8 +8,21 @@ import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -260,6 +273,245 @@ public class ClassifierTest {
         assertEquals("BLUE", engine.classification(value.setMeasure1(2.5)).get());
     }
 
+    @Test
+    public void testMultipleConstraintsPerAttribute() throws IOException {
+        Classifier<TestDomainObject, String> engine = buildWithContinuousAttributes(() -> Arrays.asList(
+                MatchingConstraint.<String, String>named("rule1")
+                        .gt("measure1", 10).le("measure1", 100)
+                        .ge("measure2", 10).lt("measure2", 100)
+                        .gt("measure3", 10L).lt("measure3", 100L)
+                        .priority(1).classification("RED").build(),
+                MatchingConstraint.<String, String>named("rule2")
+                        .ge("measure1", 0).lt("measure1", 50)
+                        .priority(0).classification("BLUE").build()
+        ));
+        TestDomainObject value = TestDomainObject.random().setMeasure1(20).setMeasure2(10).setMeasure3(99);
+        assertEquals("RED", engine.classification(value).get());
+        assertEquals(2, engine.matchCount(value));
+        assertEquals("BLUE", engine.classification(value.setMeasure1(10)).get());
+        assertEquals("RED", engine.classification(value.setMeasure1(100)).get());
+        assertFalse(engine.classification(value.setMeasure1(100.5)).isPresent());
+        assertEquals("BLUE", engine.classification(value.setMeasure1(20).setMeasure2(100)).get());
+        assertEquals("BLUE", engine.classification(value.setMeasure1(0).setMeasure2(50).setMeasure3(10)).get());
+        assertFalse(engine.classification(value.setMeasure1(50)).isPresent());
+    }
+
+    @Test
+    public void testNotEqualAndInOnNumericAttributes() throws IOException {
+        Classifier<TestDomainObject, String> engine = buildWithContinuousAttributes(() -> Arrays.asList(
+                MatchingConstraint.<String, String>named("rule1").notIn("measure2", 1, 2)
+                        .priority(3).classification("A").build(),
+                MatchingConstraint.<String, String>named("rule2").in("measure2", 1, 2, 3).lt("measure2", 3)
+                        .priority(2).classification("B").build(),
+                MatchingConstraint.<String, String>named("rule3").neq("measure3", 5L).ge("measure3", 0L)
+                        .priority(1).classification("C").build(),
+                MatchingConstraint.<String, String>named("rule4").in("measure1", 1.5, 2.5).neq("measure1", 2.5)
+                        .priority(0).classification("D").build()
+        ));
+        TestDomainObject value = TestDomainObject.random().setMeasure1(0).setMeasure2(0).setMeasure3(-1);
+        assertEquals("A", engine.classification(value).get());
+        assertEquals(1, engine.matchCount(value));
+        assertEquals("B", engine.classification(value.setMeasure2(1)).get());
+        assertEquals(1, engine.matchCount(value.setMeasure2(2)));
+        assertEquals("A", engine.classification(value.setMeasure2(3)).get());
+        assertEquals(1, engine.matchCount(value.setMeasure3(5)));
+        assertEquals(2, engine.matchCount(value.setMeasure3(6)));
+        assertEquals(3, engine.matchCount(value.setMeasure1(1.5)));
+        assertEquals(2, engine.matchCount(value.setMeasure1(2.5)));
+        assertEquals(3, engine.matchCount(value.setMeasure1(1.5).setMeasure2(1)));
+    }
+
+    @Test
+    public void testEqualityWithRangeOnNumericAttributes() throws IOException {
+        Classifier<TestDomainObject, String> engine = buildWithContinuousAttributes(() -> Arrays.asList(
+                MatchingConstraint.<String, String>named("rule1").eq("measure2", 5).gt("measure2", 0)
+                        .priority(2).classification("A").build(),
+                MatchingConstraint.<String, String>named("rule2").eq("measure3", 5L).lt("measure3", 10L)
+                        .priority(1).classification("B").build(),
+                MatchingConstraint.<String, String>named("rule3").eq("measure1", 5.0).ge("measure1", 0.0)
+                        .priority(0).classification("C").build(),
+                MatchingConstraint.<String, String>named("rule4").eq("measure2", 5).lt("measure2", 5)
+                        .priority(3).classification("D").build()
+        ));
+        TestDomainObject value = TestDomainObject.random().setMeasure1(0).setMeasure2(0).setMeasure3(0);
+        assertFalse(engine.classification(value).isPresent());
+        assertEquals("A", engine.classification(value.setMeasure2(5)).get());
+        assertEquals(1, engine.matchCount(value));
+        assertEquals(2, engine.matchCount(value.setMeasure3(5)));
+        assertEquals(3, engine.matchCount(value.setMeasure1(5)));
+        assertEquals(0, engine.matchCount(value.setMeasure1(6).setMeasure2(6).setMeasure3(6)));
+    }
+
+    @Test
+    public void testManyEqualityConstraints() throws IOException {
+        int count = 3000;
+        List<MatchingConstraint<String, String>> rules = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            rules.add(MatchingConstraint.<String, String>named("int" + i).eq("measure2", i * 3)
+                    .priority(i + 2).classification("int" + i).build());
+            rules.add(MatchingConstraint.<String, String>named("long" + i).eq("measure3", i * 3L)
+                    .priority(i + 2).classification("long" + i).build());
+        }
+        rules.add(MatchingConstraint.<String, String>named("range").ge("measure2", 300).lt("measure2", 600)
+                .priority(1).classification("range").build());
+        rules.add(MatchingConstraint.<String, String>named("exclusion").neq("measure3", 30L)
+                .priority(0).classification("exclusion").build());
+        Classifier<TestDomainObject, String> engine = buildWithContinuousAttributes(() -> rules);
+        TestDomainObject value = TestDomainObject.random().setMeasure2(-1).setMeasure3(-1);
+        assertEquals("exclusion", engine.classification(value).get());
+        assertEquals("int0", engine.classification(value.setMeasure2(0)).get());
+        assertEquals("int100", engine.classification(value.setMeasure2(300)).get());
+        assertEquals(3, engine.matchCount(value.setMeasure2(300)));
+        assertEquals("range", engine.classification(value.setMeasure2(301)).get());
+        assertEquals("int2999", engine.classification(value.setMeasure2(8997)).get());
+        assertEquals("exclusion", engine.classification(value.setMeasure2(8998)).get());
+        assertEquals("long10", engine.classification(value.setMeasure2(-1).setMeasure3(30)).get());
+        assertEquals(1, engine.matchCount(value.setMeasure3(30)));
+        assertEquals(2, engine.matchCount(value.setMeasure3(33)));
+        assertEquals(1, engine.matchCount(value.setMeasure3(31).setMeasure2(1)));
+    }
+
+    @Test
+    public void testInOnStringAttributes() throws IOException {
+        Classifier<TestDomainObject, String> engine = buildStringMatcher(() -> Arrays.asList(
+                MatchingConstraint.<String, String>named("rule1").in("field1", "a", "b").in("field1", "b", "c")
+                        .priority(1).classification("B").build(),
+                MatchingConstraint.<String, String>named("rule2").in("field1", "a", "c").notIn("field2", "x", "y")
+                        .priority(0).classification("AC").build()
+        ));
+        TestDomainObject value = TestDomainObject.random().setField2("z");
+        assertEquals("AC", engine.classification(value.setField1("a")).get());
+        assertEquals("B", engine.classification(value.setField1("b")).get());
+        assertEquals("AC", engine.classification(value.setField1("c")).get());
+        assertFalse(engine.classification(value.setField1("c").setField2("x")).isPresent());
+        assertFalse(engine.classification(value.setField1("d").setField2("z")).isPresent());
+    }
+
+    @Test
+    public void testBetweenRules() throws IOException {
+        Classifier<TestDomainObject, String> engine = buildWithContinuousAttributes(() -> Arrays.asList(
+                MatchingConstraint.<String, String>named("rule1").between("measure2", 10, 20).priority(2).classification("RED").build(),
+                MatchingConstraint.<String, String>named("rule2").between("measure2", 15, 30).priority(1).classification("BLUE").build(),
+                MatchingConstraint.<String, String>named("rule3").between("measure2", 30, 30).priority(0).classification("YELLOW").build(),
+                MatchingConstraint.<String, String>named("rule4").between("measure3", 0L, Long.MAX_VALUE).priority(3).classification("GREEN").build()
+        ));
+        TestDomainObject value = TestDomainObject.random().setMeasure3(-1);
+        assertFalse(engine.classification(value.setMeasure2(9)).isPresent());
+        assertEquals("RED", engine.classification(value.setMeasure2(10)).get());
+        assertEquals("RED", engine.classification(value.setMeasure2(15)).get());
+        assertEquals(2, engine.matchCount(value.setMeasure2(20)));
+        assertEquals("BLUE", engine.classification(value.setMeasure2(21)).get());
+        assertEquals(2, engine.matchCount(value.setMeasure2(30)));
+        assertFalse(engine.classification(value.setMeasure2(31)).isPresent());
+        assertEquals("GREEN", engine.classification(value.setMeasure3(Long.MAX_VALUE)).get());
+    }
+
+    @Test
+    public void testComparableRanges() {
+        Classifier<TestDomainObject, String> classifier =
+                Classifier.<String, TestDomainObject, String>builder(Schema.<String, TestDomainObject>create()
+                        .withAttribute("field1", TestDomainObject::getField1, Comparator.naturalOrder())
+                ).build(Arrays.asList(
+                        MatchingConstraint.<String, String>named("rule1").gt("field1", "b").lt("field1", "d").priority(2).classification("RED").build(),
+                        MatchingConstraint.<String, String>named("rule2").between("field1", "c", "e").priority(1).classification("BLUE").build(),
+                        MatchingConstraint.<String, String>named("rule3").ge("field1", "e").le("field1", "e").priority(0).classification("YELLOW").build(),
+                        MatchingConstraint.<String, String>named("rule4").ge("field1", "f").gt("field1", "a").priority(3).classification("GREEN").build()
+                ));
+        TestDomainObject value = TestDomainObject.random();
+        assertFalse(classifier.classification(value.setField1("b")).isPresent());
+        assertEquals("RED", classifier.classification(value.setField1("ba")).get());
+        assertEquals(2, classifier.matchCount(value.setField1("c")));
+        assertEquals("BLUE", classifier.classification(value.setField1("d")).get());
+        assertEquals(2, classifier.matchCount(value.setField1("e")));
+        assertFalse(classifier.classification(value.setField1("ea")).isPresent());
+        assertEquals("GREEN", classifier.classification(value.setField1("f")).get());
+        assertEquals("GREEN", classifier.classification(value.setField1("z")).get());
+    }
+
+    @Test
+    public void testComparableMembership() {
+        Classifier<TestDomainObject, String> classifier =
+                Classifier.<String, TestDomainObject, String>builder(Schema.<String, TestDomainObject>create()
+                        .withAttribute("field1", TestDomainObject::getField1, Comparator.naturalOrder())
+                ).build(Arrays.asList(
+                        MatchingConstraint.<String, String>named("rule1").in("field1", "a", "c", "e").gt("field1", "a")
+                                .priority(2).classification("RED").build(),
+                        MatchingConstraint.<String, String>named("rule2").in("field1", "b", "c")
+                                .priority(1).classification("BLUE").build(),
+                        MatchingConstraint.<String, String>named("rule3").in("field1", "c", "d").in("field1", "d", "e")
+                                .le("field1", "d").priority(0).classification("YELLOW").build()
+                ));
+        TestDomainObject value = TestDomainObject.random();
+        assertFalse(classifier.classification(value.setField1("a")).isPresent());
+        assertEquals("BLUE", classifier.classification(value.setField1("b")).get());
+        assertEquals(2, classifier.matchCount(value.setField1("c")));
+        assertEquals("YELLOW", classifier.classification(value.setField1("d")).get());
+        assertEquals("RED", classifier.classification(value.setField1("e")).get());
+        assertEquals(1, classifier.matchCount(value.setField1("e")));
+        assertFalse(classifier.classification(value.setField1("ca")).isPresent());
+    }
+
+    @Test
+    public void testComparableExclusion() {
+        Classifier<TestDomainObject, String> classifier =
+                Classifier.<String, TestDomainObject, String>builder(Schema.<String, TestDomainObject>create()
+                        .withAttribute("field1", TestDomainObject::getField1, Comparator.naturalOrder())
+                ).build(Arrays.asList(
+                        MatchingConstraint.<String, String>named("rule1").ge("field1", "b").neq("field1", "c")
+                                .priority(2).classification("RED").build(),
+                        MatchingConstraint.<String, String>named("rule2").neq("field1", "d")
+                                .priority(1).classification("BLUE").build(),
+                        MatchingConstraint.<String, String>named("rule3").in("field1", "a", "e").neq("field1", "e")
+                                .priority(0).classification("YELLOW").build()
+                ));
+        TestDomainObject value = TestDomainObject.random();
+        assertEquals(2, classifier.matchCount(value.setField1("a")));
+        assertEquals("BLUE", classifier.classification(value).get());
+        assertEquals("RED", classifier.classification(value.setField1("b")).get());
+        assertEquals("BLUE", classifier.classification(value.setField1("c")).get());
+        assertEquals(1, classifier.matchCount(value));
+        assertEquals("RED", classifier.classification(value.setField1("d")).get());
+        assertEquals(1, classifier.matchCount(value));
+        assertEquals(2, classifier.matchCount(value.setField1("e")));
+    }
+
+    @Test
+    public void testContradictoryConstraints() throws IOException {
+        Classifier<TestDomainObject, String> engine = buildSimple(() -> Arrays.asList(
+                MatchingConstraint.<String, String>named("rule1").eq("field1", "foo").eq("field1", "bar").priority(1).classification("RED").build(),
+                MatchingConstraint.<String, String>named("rule2").gt("measure1", 10).lt("measure1", 5).priority(2).classification("BLUE").build(),
+                MatchingConstraint.<String, String>named("rule3").neq("field1", "foo").neq("field1", "bar").priority(0).classification("YELLOW").build()
+        ));
+        TestDomainObject value = TestDomainObject.random();
+        assertFalse(engine.classification(value.setField1("foo").setMeasure1(7)).isPresent());
+        assertFalse(engine.classification(value.setField1("bar").setMeasure1(7)).isPresent());
+        assertEquals("YELLOW", engine.classification(value.setField1("baz").setMeasure1(7)).get());
+        assertEquals(1, engine.matchCount(value));
+    }
+
+    @Test
+    public void testMembershipWithExclusion() {
+        var classifier = Classifier.<String, String, String>builder(Schema.<String, String>create()
+                .withAttribute("value", (Function<String, String>) x -> x)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("a or b but not b").in("value", "a", "b").neq("value", "b")
+                        .classification("r1").priority(2).build(),
+                MatchingConstraint.<String, String>named("c but not d").eq("value", "c").neq("value", "d")
+                        .classification("r2").priority(1).build(),
+                MatchingConstraint.<String, String>named("w").eq("value", "w")
+                        .classification("r3").priority(0).build()
+        ));
+        assertEquals("r3", classifier.classificationOrNull("w"));
+        assertEquals(1, classifier.matchCount("w"));
+        assertEquals("r1", classifier.classificationOrNull("a"));
+        assertEquals(1, classifier.matchCount("a"));
+        assertNull(classifier.classificationOrNull("b"));
+        assertEquals("r2", classifier.classificationOrNull("c"));
+        assertEquals(1, classifier.matchCount("c"));
+        assertNull(classifier.classificationOrNull("d"));
+        assertNull(classifier.classificationOrNull("z"));
+    }
+
     @Test
     public void testBuildRuleClassifierUnregisteredAttribute() {
         assertThrows(AttributeNotRegistered.class, () ->
@@ -290,6 +542,16 @@ public class ClassifierTest {
         buildSimple(new FileRules("test.yaml", new YAMLMapper()));
     }
 
+    @Test
+    public void testBuildRuleClassifierFromYAMLWithSeveralConstraints() throws IOException {
+        var classifier = buildSimple(new FileRules("ranges.yaml", new YAMLMapper()));
+        TestDomainObject value = TestDomainObject.random();
+        assertEquals("RED", classifier.classificationOrNull(value.setField1("foo").setMeasure1(10)));
+        assertNull(classifier.classificationOrNull(value.setField1("foo").setMeasure1(0)));
+        assertNull(classifier.classificationOrNull(value.setField1("bar").setMeasure1(5)));
+        assertEquals("BLUE", classifier.classificationOrNull(value.setField1("foo").setMeasure1(11)));
+    }
+
     @Test
     public void testBuildSpecFromYAML() throws IOException {
         RuleSet<String, String> specs = new FileRules("test.yaml", new YAMLMapper());
@@ -393,6 +655,655 @@ public class ClassifierTest {
     }
 
 
+    @Test
+    public void testUtf8Attribute() {
+        var classifier = Classifier.<String, ByteBuffer, String>builder(Schema.<String, ByteBuffer>create()
+                .withUtf8Attribute("value", buffer -> buffer)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("ascii").eq("value", "foo")
+                        .classification("ascii").priority(1).build(),
+                MatchingConstraint.<String, String>named("multibyte").in("value", "café", "日本")
+                        .classification("multibyte").priority(0).build()
+        ));
+        byte[] bytes = "xfoocafé日本".getBytes(StandardCharsets.UTF_8);
+        assertEquals("ascii", classifier.classificationOrNull(ByteBuffer.wrap(bytes, 1, 3)));
+        assertNull(classifier.classificationOrNull(ByteBuffer.wrap(bytes, 1, 4)));
+        assertEquals("multibyte", classifier.classificationOrNull(ByteBuffer.wrap(bytes, 4, 5)));
+        var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+        assertEquals("multibyte", classifier.classificationOrNull(direct.position(9).limit(bytes.length)));
+        assertNull(classifier.classificationOrNull(direct.position(9).limit(12)));
+    }
+
+    @Test
+    public void testCharSequenceAttribute() {
+        var classifier = Classifier.<String, CharSequence, String>builder(Schema.<String, CharSequence>create()
+                .withCharSequenceAttribute("value", chars -> chars)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("foo").eq("value", "foo")
+                        .classification("foo").priority(1).build(),
+                MatchingConstraint.<String, String>named("not bar").neq("value", "bar")
+                        .classification("not bar").priority(0).build()
+        ));
+        var builder = new StringBuilder("foo");
+        assertEquals("foo", classifier.classificationOrNull(builder));
+        assertEquals(2, classifier.matchCount(builder));
+        assertEquals("not bar", classifier.classificationOrNull(builder.append('d')));
+        builder.setLength(0);
+        assertNull(classifier.classificationOrNull(builder.append("bar")));
+        assertEquals("foo", classifier.classificationOrNull(CharBuffer.wrap("xfoo", 1, 4)));
+    }
+
+    @Test
+    public void testDictionaryAttribute() {
+        var dictionary = StringDictionary.of("upstream", "bar");
+        var classifier = Classifier.<String, Integer, String>builder(Schema.<String, Integer>create()
+                .withDictionaryAttribute("value", dictionary, code -> code)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("foo").in("value", "foo", "qux")
+                        .classification("foo").priority(1).build(),
+                MatchingConstraint.<String, String>named("not bar").neq("value", "bar")
+                        .classification("not bar").priority(0).build()
+        ));
+        assertEquals(1, dictionary.code("bar"));
+        assertEquals(4, dictionary.size());
+        assertEquals("foo", classifier.classificationOrNull(dictionary.code("foo")));
+        assertEquals("foo", classifier.classificationOrNull(dictionary.code("qux")));
+        assertEquals(2, classifier.matchCount(dictionary.code("foo")));
+        assertNull(classifier.classificationOrNull(dictionary.code("bar")));
+        assertEquals("not bar", classifier.classificationOrNull(dictionary.code("upstream")));
+        assertEquals(StringDictionary.NOT_FOUND, dictionary.code("other"));
+        assertEquals("not bar", classifier.classificationOrNull(StringDictionary.NOT_FOUND));
+        assertEquals("not bar", classifier.classificationOrNull(dictionary.encode("other")));
+    }
+
+    @Test
+    public void testCaseInsensitiveStringAttribute() {
+        var classifier = Classifier.<String, String, String>builder(Schema.<String, String>create()
+                .withCaseInsensitiveStringAttribute("value", value -> value)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("foo").in("value", "Foo", "BAR").in("value", "foo")
+                        .classification("foo").priority(2).build(),
+                MatchingConstraint.<String, String>named("bar").eq("value", "bar")
+                        .classification("bar").priority(1).build(),
+                MatchingConstraint.<String, String>named("not straße").neq("value", "STRASSE").neq("value", "Straße")
+                        .classification("not straße").priority(0).build()
+        ));
+        assertEquals("foo", classifier.classificationOrNull("fOO"));
+        assertEquals(2, classifier.matchCount("FOO"));
+        assertEquals("bar", classifier.classificationOrNull("Bar"));
+        assertEquals("not straße", classifier.classificationOrNull("baz"));
+        assertEquals("not straße", classifier.classificationOrNull("strasse!"));
+        assertNull(classifier.classificationOrNull("strasse"));
+        assertNull(classifier.classificationOrNull("STRAßE"));
+        assertEquals("not straße", classifier.classificationOrNull(null));
+    }
+
+    @Test
+    public void testMultiValuedAttribute() {
+        var classifier = Classifier.<String, List<String>, String>builder(Schema.<String, List<String>>create()
+                .withMultiValuedAttribute("tags", tags -> tags)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("a not x").eq("tags", "a").neq("tags", "x")
+                        .classification("a not x").priority(3).build(),
+                MatchingConstraint.<String, String>named("b or c").in("tags", "b", "c")
+                        .classification("b or c").priority(2).build(),
+                MatchingConstraint.<String, String>named("not y").neq("tags", "y")
+                        .classification("not y").priority(1).build()
+        ));
+        assertEquals("a not x", classifier.classificationOrNull(List.of("z", "a")));
+        assertEquals(2, classifier.matchCount(List.of("z", "a")));
+        assertEquals("b or c", classifier.classificationOrNull(List.of("x", "a", "c")));
+        assertEquals(3, classifier.matchCount(List.of("a", "c", "b")));
+        assertEquals(2, classifier.matchCount(List.of("a", "c", "y")));
+        assertEquals("not y", classifier.classificationOrNull(List.of()));
+        assertEquals("not y", classifier.classificationOrNull(null));
+        assertNull(classifier.classificationOrNull(List.of("x", "y")));
+    }
+
+    @Test
+    public void testMultiValuedAttributeWithManyRules() {
+        List<MatchingConstraint<String, String>> rules = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            rules.add(MatchingConstraint.<String, String>named("tag" + i).eq("tags", "tag" + i)
+                    .classification("tag" + i).priority(i).build());
+        }
+        var classifier = Classifier.<String, Set<String>, String>builder(Schema.<String, Set<String>>create()
+                .withMultiValuedAttribute("tags", tags -> tags)
+        ).build(rules);
+        assertEquals(3, classifier.matchCount(Set.of("tag5", "tag70", "tag199", "other")));
+        assertEquals("tag199", classifier.classificationOrNull(Set.of("tag5", "tag70", "tag199")));
+        assertEquals(0, classifier.matchCount(Set.of("other")));
+    }
+
+    @Test
+    public void testMultiValuedArrayAttribute() {
+        var classifier = Classifier.<String, String[], String>builder(Schema.<String, String[]>create()
+                .withMultiValuedArrayAttribute("tags", tags -> tags)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("a not x").eq("tags", "a").neq("tags", "x")
+                        .classification("a not x").priority(2).build(),
+                MatchingConstraint.<String, String>named("not y").neq("tags", "y")
+                        .classification("not y").priority(1).build()
+        ));
+        assertEquals("a not x", classifier.classificationOrNull(new String[]{"z", "a"}));
+        assertEquals(2, classifier.matchCount(new String[]{"z", "a"}));
+        assertEquals("not y", classifier.classificationOrNull(new String[]{"x", "a"}));
+        assertEquals("not y", classifier.classificationOrNull(new String[0]));
+        assertNull(classifier.classificationOrNull(new String[]{"a", "x", "y"}));
+    }
+
+    @Test
+    public void testMultiValuedAttributeSequentialList() {
+        var classifier = Classifier.<String, List<String>, String>builder(Schema.<String, List<String>>create()
+                .withMultiValuedAttribute("tags", tags -> tags)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("b or c").in("tags", "b", "c")
+                        .classification("b or c").priority(1).build()
+        ));
+        assertEquals("b or c", classifier.classificationOrNull(new LinkedList<>(List.of("a", "c"))));
+        assertEquals("b or c", classifier.classificationOrNull(new ArrayList<>(List.of("a", "c"))));
+        assertNull(classifier.classificationOrNull(new LinkedList<>(List.of("a"))));
+    }
+
+    @Test
+    public void testMultiValuedAttributeRejectsSeveralMemberships() {
+        assertThrows(IllegalArgumentException.class, () ->
+                Classifier.<String, List<String>, String>builder(Schema.<String, List<String>>create()
+                        .withMultiValuedAttribute("tags", tags -> tags)
+                ).build(new ArrayList<>(List.of(
+                        MatchingConstraint.<String, String>named("a and b").eq("tags", "a").eq("tags", "b")
+                                .classification("a and b").priority(0).build()))));
+    }
+
+    @Test
+    public void testBooleanAttribute() {
+        var classifier = Classifier.<String, Integer, String>builder(Schema.<String, Integer>create()
+                .withBooleanAttribute("even", x -> x % 2 == 0)
+                .withAttribute("value", (ToIntFunction<Integer>) x -> x)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("even").eq("even", true)
+                        .classification("even").priority(2).build(),
+                MatchingConstraint.<String, String>named("not even").neq("even", true)
+                        .classification("not even").priority(1).build(),
+                MatchingConstraint.<String, String>named("small").lt("value", 10)
+                        .classification("small").priority(0).build()
+        ));
+        assertEquals("even", classifier.classificationOrNull(20));
+        assertEquals(2, classifier.matchCount(2));
+        assertEquals("not even", classifier.classificationOrNull(21));
+        assertEquals(2, classifier.matchCount(1));
+    }
+
+    @Test
+    public void testNarrowPrimitiveAttributes() {
+        var classifier = Classifier.<String, Integer, String>builder(Schema.<String, Integer>create()
+                .withFloatAttribute("float", x -> x / 10f)
+                .withShortAttribute("short", Integer::shortValue)
+                .withByteAttribute("byte", Integer::byteValue)
+                .withCharAttribute("char", x -> (char) x.intValue())
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("float").gt("float", 0.1).le("float", 1.5)
+                        .classification("float").priority(3).build(),
+                MatchingConstraint.<String, String>named("short").in("short", 1000, -1000)
+                        .classification("short").priority(2).build(),
+                MatchingConstraint.<String, String>named("byte").between("byte", -5, 5).neq("byte", 0)
+                        .classification("byte").priority(1).build(),
+                MatchingConstraint.<String, String>named("char").between("char", 'a', 'z')
+                        .classification("char").priority(0).build()
+        ));
+        // 0.1f is greater than 0.1, but not greater than 0.1 rounded to a float
+        assertEquals("byte", classifier.classificationOrNull(1));
+        assertEquals("float", classifier.classificationOrNull(2));
+        assertEquals("float", classifier.classificationOrNull(15));
+        assertEquals("byte", classifier.classificationOrNull(-5));
+        assertNull(classifier.classificationOrNull(0));
+        assertEquals("byte", classifier.classificationOrNull(256 + 3));
+        assertEquals("short", classifier.classificationOrNull(1000));
+        assertEquals("short", classifier.classificationOrNull(65536 - 1000));
+        assertEquals("char", classifier.classificationOrNull((int) 'q'));
+        assertEquals(0, classifier.matchCount((int) 'Q'));
+    }
+
+    @Test
+    public void testFloatTotalOrder() {
+        var classifier = Classifier.<String, Float, String>builder(Schema.<String, Float>create()
+                .withFloatAttribute("value", x -> x)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("negative").lt("value", 0f)
+                        .classification("negative").priority(3).build(),
+                MatchingConstraint.<String, String>named("finite").gt("value", Float.NEGATIVE_INFINITY)
+                        .lt("value", Float.POSITIVE_INFINITY)
+                        .classification("finite").priority(2).build(),
+                MatchingConstraint.<String, String>named("large").gt("value", 1e30f)
+                        .classification("large").priority(1).build(),
+                MatchingConstraint.<String, String>named("above one").gt("value", 1f)
+                        .classification("above one").priority(0).build()
+        ));
+        assertEquals("negative", classifier.classificationOrNull(-0f));
+        assertEquals("finite", classifier.classificationOrNull(0f));
+        assertEquals(1, classifier.matchCount(0f));
+        assertEquals(1, classifier.matchCount(1f));
+        assertEquals(2, classifier.matchCount(Math.nextUp(1f)));
+        // NaN follows positive infinity
+        assertEquals("large", classifier.classificationOrNull(Float.NaN));
+        assertEquals(2, classifier.matchCount(Float.NaN));
+        assertEquals(2, classifier.matchCount(Float.POSITIVE_INFINITY));
+        assertEquals(2, classifier.matchCount(-1f));
+        assertEquals(1, classifier.matchCount(Float.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void testTemporalAttributes() {
+        var classifier = Classifier.<String, LocalDateTime, String>builder(Schema.<String, LocalDateTime>create()
+                .withInstantAttribute("instant", time -> time.toInstant(ZoneOffset.UTC))
+                .withLocalDateAttribute("date", LocalDateTime::toLocalDate)
+                .withLocalTimeAttribute("time", LocalDateTime::toLocalTime)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("instant")
+                        .ge("instant", Instant.parse("2030-01-01T00:00:00.000000001Z"))
+                        .classification("instant").priority(3).build(),
+                MatchingConstraint.<String, String>named("date")
+                        .between("date", LocalDate.of(2019, 12, 1), LocalDate.of(2019, 12, 31))
+                        .classification("date").priority(2).build(),
+                MatchingConstraint.<String, String>named("time")
+                        .lt("time", LocalTime.NOON)
+                        .classification("time").priority(1).build(),
+                MatchingConstraint.<String, String>named("epoch")
+                        .eq("instant", Instant.EPOCH)
+                        .classification("epoch").priority(0).build()
+        ));
+        assertEquals("instant", classifier.classificationOrNull(LocalDateTime.of(2030, 1, 1, 0, 0, 0, 1)));
+        assertEquals("time", classifier.classificationOrNull(LocalDateTime.of(2030, 1, 1, 0, 0, 0, 0)));
+        assertEquals("date", classifier.classificationOrNull(LocalDateTime.of(2019, 12, 31, 23, 0)));
+        assertEquals(2, classifier.matchCount(LocalDateTime.of(2019, 12, 1, 11, 59)));
+        assertNull(classifier.classificationOrNull(LocalDateTime.of(2020, 1, 1, 12, 0)));
+        assertEquals(2, classifier.matchCount(LocalDateTime.of(1970, 1, 1, 0, 0)));
+        assertEquals(0, classifier.matchCount(LocalDateTime.of(1970, 1, 1, 12, 0)));
+        assertEquals("instant", classifier.classificationOrNull(LocalDateTime.of(3000, 1, 1, 12, 0)));
+        assertNull(classifier.classificationOrNull(LocalDateTime.of(1000, 1, 1, 12, 0)));
+    }
+
+    @Test
+    public void testInstantsOutsideTheEncodableRange() {
+        var schema = Schema.<String, Instant>create()
+                .withInstantAttribute("instant", x -> x);
+        for (var instant : List.of(Instant.parse("1677-09-21T00:12:44.999999999Z"), Instant.parse("2262-04-11T23:47:16Z"),
+                Instant.MIN, Instant.MAX)) {
+            assertThrows(IllegalArgumentException.class, () -> Classifier.<String, Instant, String>builder(schema)
+                    .build(Arrays.asList(MatchingConstraint.<String, String>named("out of range").eq("instant", instant)
+                            .classification("out of range").priority(0).build())));
+        }
+        var first = Instant.parse("1677-09-21T00:12:45Z");
+        var last = Instant.parse("2262-04-11T23:47:15.999999999Z");
+        var classifier = Classifier.<String, Instant, String>builder(schema).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("first").le("instant", first)
+                        .classification("first").priority(1).build(),
+                MatchingConstraint.<String, String>named("last").eq("instant", last)
+                        .classification("last").priority(0).build()));
+        assertEquals("first", classifier.classificationOrNull(first));
+        assertEquals("first", classifier.classificationOrNull(Instant.MIN));
+        assertEquals("last", classifier.classificationOrNull(last));
+        assertNull(classifier.classificationOrNull(Instant.MAX));
+        assertNull(classifier.classificationOrNull(first.plusNanos(1)));
+    }
+
+    @Test
+    public void testWithinBox() {
+        var classifier = Classifier.<String, double[], String>builder(Schema.<String, double[]>create()
+                .withGeoAttribute("point", point -> point[0], point -> point[1])
+                .withAttribute("altitude", (ToDoubleFunction<double[]>) point -> point[2])
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("london").withinBox("point", 51.28, -0.51, 51.69, 0.33)
+                        .classification("london").priority(2).build(),
+                MatchingConstraint.<String, String>named("england").withinBox("point", 49.9, -6.4, 55.8, 1.8)
+                        .classification("england").priority(1).build(),
+                MatchingConstraint.<String, String>named("high").gt("altitude", 1000D)
+                        .classification("high").priority(0).build()
+        ));
+        assertEquals("london", classifier.classificationOrNull(new double[]{51.5, -0.12, 0}));
+        assertEquals(2, classifier.matchCount(new double[]{51.5, -0.12, 0}));
+        assertEquals("england", classifier.classificationOrNull(new double[]{53.48, -2.24, 0}));
+        assertEquals("england", classifier.classificationOrNull(new double[]{55.8, 1.8, 0}));
+        assertEquals("high", classifier.classificationOrNull(new double[]{45.83, 6.86, 4808}));
+        assertNull(classifier.classificationOrNull(new double[]{Double.NaN, 0, 0}));
+    }
+
+    @Test
+    public void testWithinManyBoxes() {
+        var random = new SplittableRandom(0);
+        List<double[]> boxes = new ArrayList<>();
+        List<MatchingConstraint<String, Integer>> rules = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            double lat = random.nextDouble(-80, 80);
+            double lon = random.nextDouble(-170, 170);
+            // some boxes are large enough to cover whole cells
+            double size = i % 10 == 0 ? 90 : 10;
+            double[] box = {lat, lon, lat + random.nextDouble(0, size), lon + random.nextDouble(0, size)};
+            boxes.add(box);
+            rules.add(MatchingConstraint.<String, Integer>named("box" + i)
+                    .withinBox("point", box[0], box[1], box[2], box[3])
+                    .classification(i).priority(i).build());
+        }
+        var classifier = Classifier.<String, double[], Integer>builder(Schema.<String, double[]>create()
+                .withGeoAttribute("point", point -> point[0], point -> point[1])
+        ).build(rules);
+        for (int i = 0; i < 10000; ++i) {
+            double[] point = {random.nextDouble(-90, 90), random.nextDouble(-180, 180)};
+            if (i < boxes.size()) {
+                // exactly on a corner of a box
+                point = new double[]{boxes.get(i)[2], boxes.get(i)[1]};
+            }
+            int expected = 0;
+            for (double[] box : boxes) {
+                if (point[0] >= box[0] && point[0] <= box[2] && point[1] >= box[1] && point[1] <= box[3]) {
+                    ++expected;
+                }
+            }
+            assertEquals(expected, classifier.matchCount(point), Arrays.toString(point));
+        }
+    }
+
+    @Test
+    public void testAnyOf() {
+        var classifier = Classifier.<String, Integer, String>builder(Schema.<String, Integer>create()
+                .withAttribute("mod3", (ToIntFunction<Integer>) x -> x % 3)
+                .withAttribute("mod5", (ToIntFunction<Integer>) x -> x % 5)
+                .withBooleanAttribute("odd", x -> x % 2 != 0)
+                .withAttribute("value", (ToIntFunction<Integer>) x -> x)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("fizz or buzz")
+                        .anyOf(MatchingConstraint.<String, String>anonymous().eq("mod3", 0),
+                                MatchingConstraint.<String, String>anonymous().eq("mod5", 0))
+                        .classification("fizz or buzz").priority(3).build(),
+                MatchingConstraint.<String, String>named("odd and small or big").eq("odd", true)
+                        .anyOf(MatchingConstraint.<String, String>anonymous().lt("value", 10),
+                                MatchingConstraint.<String, String>anonymous().gt("value", 100))
+                        .classification("odd and small or big").priority(2).build(),
+                MatchingConstraint.<String, String>named("small").lt("value", 1000)
+                        .classification("small").priority(1).build(),
+                MatchingConstraint.<String, String>named("two groups")
+                        .anyOf(MatchingConstraint.<String, String>anonymous().eq("mod3", 0),
+                                MatchingConstraint.<String, String>anonymous().eq("mod5", 0))
+                        .anyOf(MatchingConstraint.<String, String>anonymous().lt("value", 10),
+                                MatchingConstraint.<String, String>anonymous().gt("value", 100))
+                        .classification("two groups").priority(0).build()
+        ));
+        assertEquals("fizz or buzz", classifier.classificationOrNull(15));
+        assertEquals(2, classifier.matchCount(15));
+        List<String> classifications = new ArrayList<>();
+        classifier.forEachClassification(105, classifications::add);
+        assertEquals(List.of("fizz or buzz", "odd and small or big", "small", "two groups"), classifications);
+        assertEquals(4, classifier.matchCount(105));
+        assertEquals("odd and small or big", classifier.classificationOrNull(7));
+        assertEquals(2, classifier.matchCount(7));
+        assertEquals("odd and small or big", classifier.classificationOrNull(1001));
+        assertEquals(1, classifier.matchCount(1001));
+        assertEquals("fizz or buzz", classifier.classificationOrNull(6));
+        assertEquals(3, classifier.matchCount(6));
+        assertNull(classifier.classificationOrNull(1004));
+    }
+
+    @Test
+    public void testNestedAnyOfRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MatchingConstraint.<String, String>named("nested")
+                .anyOf(MatchingConstraint.<String, String>anonymous().anyOf(MatchingConstraint.<String, String>anonymous().eq("a", 0))));
+    }
+
+    @Test
+    public void testDerivedAttributes() {
+        var derivations = new AtomicInteger();
+        var classifier = Classifier.<String, StringBuilder, String>builder(Schema.<String, StringBuilder>create()
+                .withDerived(csv -> {
+                    derivations.incrementAndGet();
+                    return csv.toString().split(",");
+                }, fields -> fields
+                        .withStringAttribute("country", row -> row[0])
+                        .withAttribute("amount", (ToIntFunction<String[]>) row -> Integer.parseInt(row[1]))
+                        .withBooleanAttribute("flagged", row -> Boolean.parseBoolean(row[2])))
+                .withAttribute("length", (ToIntFunction<StringBuilder>) StringBuilder::length)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("large uk").eq("country", "UK").gt("amount", 100)
+                        .eq("flagged", false).classification("large uk").priority(2).build(),
+                MatchingConstraint.<String, String>named("flagged").eq("flagged", true).lt("length", 100)
+                        .classification("flagged").priority(1).build()
+        ));
+        var row = new StringBuilder("UK,200,false");
+        assertEquals("large uk", classifier.classificationOrNull(row));
+        assertEquals(1, derivations.get());
+        assertEquals(1, classifier.matchCount(row));
+        assertEquals(2, derivations.get());
+        // the row is derived again after it changes
+        row.setLength(0);
+        row.append("UK,200,true");
+        assertEquals("flagged", classifier.classificationOrNull(row));
+        assertEquals(3, derivations.get());
+    }
+
+    @Test
+    public void testCompositeAttribute() {
+        var classifier = Classifier.<String, String[], String>builder(Schema.<String, String[]>create()
+                .withCompositeAttribute("market", row -> row[0], row -> row[1])
+                .withStringAttribute("channel", row -> row[2])
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("uk").eq("market", List.of("UK", "GBP"))
+                        .classification("uk").priority(3).build(),
+                MatchingConstraint.<String, String>named("euro area")
+                        .in("market", List.of("FR", "EUR"), List.of("DE", "EUR"))
+                        .eq("channel", "web")
+                        .classification("euro area").priority(2).build(),
+                MatchingConstraint.<String, String>named("not us").neq("market", Arrays.asList("US", "USD"))
+                        .classification("not us").priority(1).build()
+        ));
+        assertEquals("uk", classifier.classificationOrNull(new String[]{"UK", "GBP", "web"}));
+        assertEquals(2, classifier.matchCount(new String[]{"UK", "GBP", "web"}));
+        assertEquals("not us", classifier.classificationOrNull(new String[]{"UK", "EUR", "web"}));
+        assertEquals("euro area", classifier.classificationOrNull(new String[]{"DE", "EUR", "web"}));
+        assertEquals("not us", classifier.classificationOrNull(new String[]{"DE", "EUR", "app"}));
+        assertEquals("not us", classifier.classificationOrNull(new String[]{"US", null, "app"}));
+        assertNull(classifier.classificationOrNull(new String[]{"US", "USD", "web"}));
+    }
+
+    @Test
+    public void testCompositeAttributeRejectsWrongArity() {
+        assertThrows(IllegalArgumentException.class, () ->
+                Classifier.<String, String[], String>builder(Schema.<String, String[]>create()
+                        .withCompositeAttribute("market", row -> row[0], row -> row[1])
+                ).build(Arrays.asList(
+                        MatchingConstraint.<String, String>named("uk").eq("market", List.of("UK"))
+                                .classification("uk").priority(1).build())));
+    }
+
+    @Test
+    public void testMissingValuesAsValues() {
+        var classifier = Classifier.<String, String[], String>builder(Schema.<String, String[]>create()
+                .withStringAttribute("country", row -> row[0])
+                .withAttribute("date", row -> null == row[1] ? null : LocalDate.parse(row[1]),
+                        Comparator.<LocalDate>naturalOrder())
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("no country").isNull("country")
+                        .classification("no country").priority(4).build(),
+                MatchingConstraint.<String, String>named("recent").gt("date", LocalDate.of(2020, 1, 1))
+                        .isNotNull("country")
+                        .classification("recent").priority(3).build(),
+                MatchingConstraint.<String, String>named("not uk").neq("country", "UK")
+                        .classification("not uk").priority(2).build(),
+                MatchingConstraint.<String, String>named("undated").eq("date", null)
+                        .classification("undated").priority(1).build()
+        ));
+        assertEquals("no country", classifier.classificationOrNull(new String[]{null, "2021-01-01"}));
+        assertEquals(2, classifier.matchCount(new String[]{null, "2021-01-01"}));
+        assertEquals("recent", classifier.classificationOrNull(new String[]{"UK", "2021-01-01"}));
+        assertEquals(1, classifier.matchCount(new String[]{"UK", "2021-01-01"}));
+        assertEquals("not uk", classifier.classificationOrNull(new String[]{"FR", null}));
+        assertEquals(2, classifier.matchCount(new String[]{"FR", null}));
+        assertEquals("undated", classifier.classificationOrNull(new String[]{"UK", null}));
+        assertEquals(3, classifier.matchCount(new String[]{null, null}));
+    }
+
+    @Test
+    public void testMissingValuePolicies() {
+        List<MatchingConstraint<String, String>> rules = Arrays.asList(
+                MatchingConstraint.<String, String>named("uk").eq("country", "UK")
+                        .classification("uk").priority(3).build(),
+                MatchingConstraint.<String, String>named("not fr").neq("country", "FR")
+                        .classification("not fr").priority(2).build(),
+                MatchingConstraint.<String, String>named("present").isNotNull("country")
+                        .classification("present").priority(1).build(),
+                MatchingConstraint.<String, String>named("web").eq("channel", "web")
+                        .classification("web").priority(0).build());
+        String[] missing = {null, "web"};
+        var wildcard = Classifier.<String, String[], String>builder(Schema.<String, String[]>create()
+                .withStringAttribute("country", row -> row[0])
+                .withStringAttribute("channel", row -> row[1])
+                .withMissingValues(MissingValuePolicy.WILDCARD)
+        ).build(new ArrayList<>(rules));
+        assertEquals("uk", wildcard.classificationOrNull(missing));
+        assertEquals(3, wildcard.matchCount(missing));
+        var neverMatch = Classifier.<String, String[], String>builder(Schema.<String, String[]>create()
+                .withStringAttribute("country", row -> row[0])
+                .withStringAttribute("channel", row -> row[1])
+                .withMissingValues(MissingValuePolicy.WILDCARD)
+                .withMissingValues("country", MissingValuePolicy.NEVER_MATCH)
+        ).build(new ArrayList<>(rules));
+        assertEquals("web", neverMatch.classificationOrNull(missing));
+        assertEquals(1, neverMatch.matchCount(missing));
+        assertEquals("present", neverMatch.classificationOrNull(new String[]{"FR", null}));
+        assertEquals(2, neverMatch.matchCount(new String[]{"FR", null}));
+        assertEquals(4, neverMatch.matchCount(new String[]{"UK", "web"}));
+    }
+
+    @Test
+    public void testDerivedAttributesKeepMissingValuePolicies() {
+        List<MatchingConstraint<String, String>> rules = Arrays.asList(
+                MatchingConstraint.<String, String>named("uk").eq("country", "UK")
+                        .classification("uk").priority(2).build(),
+                MatchingConstraint.<String, String>named("web").eq("channel", "web")
+                        .classification("web").priority(1).build());
+        String missing = ",web";
+        Function<String, String[]> split = csv -> csv.split(",", -1);
+        Function<String, String> orNull = field -> field.isEmpty() ? null : field;
+        var derived = Classifier.<String, String, String>builder(Schema.<String, String>create()
+                .withDerived(split, fields -> fields
+                        .withStringAttribute("country", row -> orNull.apply(row[0]))
+                        .withStringAttribute("channel", row -> orNull.apply(row[1]))
+                        .withMissingValues(MissingValuePolicy.WILDCARD))
+        ).build(new ArrayList<>(rules));
+        assertEquals("uk", derived.classificationOrNull(missing));
+        assertEquals(2, derived.matchCount(missing));
+        // the policies of the outer schema take precedence
+        var overridden = Classifier.<String, String, String>builder(Schema.<String, String>create()
+                .withDerived(split, fields -> fields
+                        .withStringAttribute("country", row -> orNull.apply(row[0]))
+                        .withStringAttribute("channel", row -> orNull.apply(row[1]))
+                        .withMissingValues(MissingValuePolicy.WILDCARD))
+                .withMissingValues("country", MissingValuePolicy.NEVER_MATCH)
+        ).build(new ArrayList<>(rules));
+        assertEquals("web", overridden.classificationOrNull(missing));
+        assertEquals(1, overridden.matchCount(missing));
+    }
+
+    @Test
+    public void testApproximateEquality() {
+        var classifier = Classifier.<String, Double, String>builder(Schema.<String, Double>create()
+                .withAttribute("discountedPrice", (ToDoubleFunction<Double>) price -> 0.2 * price)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("exact").eq("discountedPrice", 20.06)
+                        .classification("exact").priority(3).build(),
+                MatchingConstraint.<String, String>named("approximate").approxEq("discountedPrice", 20.06, 1e-9)
+                        .classification("approximate").priority(2).build(),
+                MatchingConstraint.<String, String>named("roughly").approxEq("discountedPrice", 20, 0.5)
+                        .lt("discountedPrice", 20.1)
+                        .classification("roughly").priority(1).build()
+        ));
+        assertNotEquals(20.06, 0.2 * 100.3);
+        assertEquals("approximate", classifier.classificationOrNull(100.3));
+        assertEquals(2, classifier.matchCount(100.3));
+        assertEquals("roughly", classifier.classificationOrNull(99.0));
+        assertEquals(1, classifier.matchCount(99.0));
+        assertNull(classifier.classificationOrNull(102.5));
+        assertNull(classifier.classificationOrNull(110.0));
+        assertThrows(IllegalArgumentException.class, () -> Constraint.approximatelyEqualTo(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> Constraint.approximatelyEqualTo(1, Double.NaN));
+    }
+
+    @Test
+    public void testDoubleTotalOrder() {
+        var classifier = Classifier.<String, Double, String>builder(Schema.<String, Double>create()
+                .withAttribute("value", (ToDoubleFunction<Double>) x -> x)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("negative").lt("value", 0D)
+                        .classification("negative").priority(3).build(),
+                MatchingConstraint.<String, String>named("finite").gt("value", Double.NEGATIVE_INFINITY)
+                        .lt("value", Double.POSITIVE_INFINITY)
+                        .classification("finite").priority(2).build(),
+                MatchingConstraint.<String, String>named("large").gt("value", 1e300)
+                        .classification("large").priority(1).build()
+        ));
+        assertEquals("negative", classifier.classificationOrNull(-0D));
+        assertEquals("finite", classifier.classificationOrNull(0D));
+        // NaN follows positive infinity
+        assertEquals("large", classifier.classificationOrNull(Double.NaN));
+        assertEquals(1, classifier.matchCount(Double.NaN));
+        assertEquals(1, classifier.matchCount(Double.POSITIVE_INFINITY));
+        assertEquals(2, classifier.matchCount(-1D));
+        assertEquals(1, classifier.matchCount(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void testDoubleTotalOrderOfCombinedConstraints() {
+        var classifier = Classifier.<String, Double, String>builder(Schema.<String, Double>create()
+                .withAttribute("value", (ToDoubleFunction<Double>) x -> x)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("below nan").lt("value", Double.NaN).gt("value", -1D)
+                        .classification("below nan").priority(0).build(),
+                MatchingConstraint.<String, String>named("unit").ge("value", 0D).le("value", 1D)
+                        .classification("unit").priority(1).build(),
+                MatchingConstraint.<String, String>named("negative zero").in("value", -0D, 0D).lt("value", 0D)
+                        .classification("negative zero").priority(2).build(),
+                MatchingConstraint.<String, String>named("nan").gt("value", Double.POSITIVE_INFINITY).ge("value", 0D)
+                        .classification("nan").priority(3).build()
+        ));
+        assertEquals("unit", classifier.classificationOrNull(0D));
+        assertEquals(2, classifier.matchCount(0D));
+        assertEquals("negative zero", classifier.classificationOrNull(-0D));
+        assertEquals(2, classifier.matchCount(-0D));
+        assertEquals("below nan", classifier.classificationOrNull(5D));
+        assertEquals(1, classifier.matchCount(5D));
+        assertEquals("below nan", classifier.classificationOrNull(Double.POSITIVE_INFINITY));
+        assertEquals(1, classifier.matchCount(Double.POSITIVE_INFINITY));
+        assertEquals("nan", classifier.classificationOrNull(Double.NaN));
+        assertEquals(1, classifier.matchCount(Double.NaN));
+        assertEquals(0, classifier.matchCount(-1D));
+    }
+
+    @Test
+    public void testLongThresholds() {
+        long start = 1_700_000_000_000_000_000L;
+        long snowflake = 1_541_815_603_606_036_480L;
+        var classifier = Classifier.<String, Long, String>builder(Schema.<String, Long>create()
+                .withAttribute("value", (ToLongFunction<Long>) x -> x)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("window").ge("value", start).lt("value", start + 1000)
+                        .classification("window").priority(3).build(),
+                MatchingConstraint.<String, String>named("snowflake").eq("value", snowflake)
+                        .classification("snowflake").priority(2).build(),
+                MatchingConstraint.<String, String>named("large").gt("value", 1L << 40)
+                        .classification("large").priority(1).build()
+        ));
+        assertEquals("window", classifier.classificationOrNull(start));
+        assertEquals("window", classifier.classificationOrNull(start + 999));
+        assertEquals(2, classifier.matchCount(start + 999));
+        assertEquals("large", classifier.classificationOrNull(start + 1000));
+        assertEquals("large", classifier.classificationOrNull(start - 1));
+        assertEquals("snowflake", classifier.classificationOrNull(snowflake));
+        assertEquals("large", classifier.classificationOrNull(snowflake + 1));
+        assertNull(classifier.classificationOrNull(1L << 40));
+        // 1 << 40 truncated to an int is zero
+        assertNull(classifier.classificationOrNull(1L));
+        assertEquals(0, classifier.matchCount(Long.MIN_VALUE));
+        assertEquals(1, classifier.matchCount(Long.MAX_VALUE));
+    }
+
     private Classifier<TestDomainObject, String> buildStringMatcher(RuleSet<String, String> repo) throws IOException {
         return Classifier.<String, TestDomainObject, String>builder(Schema.<String, TestDomainObject>create()
                 .withStringAttribute("field1", TestDomainObject::getField1)
@@ -401,6 +1312,35 @@ public class ClassifierTest {
         ).build(repo.constraints());
     }
 
+    @Test
+    public void testEnumMatcher() {
+        var classifier = Classifier.<String, TestDomainObject, String>builder(Schema.<String, TestDomainObject>create()
+                .withEnumAttribute("colour", TestDomainObject::getColour, TestDomainObject.Colour.class)
+        ).build(Arrays.asList(
+                MatchingConstraint.<String, String>named("red")
+                        .eq("colour", TestDomainObject.Colour.RED)
+                        .classification("red")
+                        .priority(2)
+                        .build(),
+                MatchingConstraint.<String, String>named("not blue")
+                        .neq("colour", TestDomainObject.Colour.BLUE)
+                        .classification("not blue")
+                        .priority(1)
+                        .build(),
+                MatchingConstraint.<String, String>named("not yellow")
+                        .neq("colour", TestDomainObject.Colour.YELLOW)
+                        .classification("not yellow")
+                        .priority(0)
+                        .build()
+        ));
+        assertEquals("red", classifier.classificationOrNull(TestDomainObject.random().setColour(TestDomainObject.Colour.RED)));
+        assertEquals("not yellow", classifier.classificationOrNull(TestDomainObject.random().setColour(TestDomainObject.Colour.BLUE)));
+        assertEquals("not blue", classifier.classificationOrNull(TestDomainObject.random().setColour(TestDomainObject.Colour.YELLOW)));
+        assertEquals("not blue", classifier.classificationOrNull(TestDomainObject.random().setColour(null)));
+        assertEquals(1, classifier.matchCount(TestDomainObject.random().setColour(TestDomainObject.Colour.YELLOW)));
+        assertEquals(3, classifier.matchCount(TestDomainObject.random().setColour(TestDomainObject.Colour.RED)));
+    }
+
     private Classifier<TestDomainObject, String> buildStringAndEnumMatcher(RuleSet<String, String> repo) throws IOException {
         return Classifier.<String, TestDomainObject, String>builder(Schema.<String, TestDomainObject>create()
                 .withStringAttribute("field1", TestDomainObject::getField1)
@@ -1,5 +1,6 @@
 package io.github.richardstartin.multimatcher.core.masks;
 
+import io.github.richardstartin.multimatcher.core.Mask;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
@@ -109,5 +110,41 @@ class MaskTest {
         assertEquals(roaringMaskStore.contiguous(100).or(roaringMaskStore.of(101, 102)), roaringMaskStore.contiguous(100).inPlaceOr(roaringMaskStore.of(101, 102)));
     }
 
+    @Test
+    public void testRemoveIsIdempotent() {
+        assertRemoveIsIdempotent(wordMaskStore);
+        assertRemoveIsIdempotent(bitmapMaskStore);
+        assertRemoveIsIdempotent(roaringMaskStore);
+    }
+
+    @Test
+    public void testBitmapMaskEmptinessAfterUpdate() {
+        BitsetMask mask = bitmapMaskStore.newMask();
+        assertTrue(mask.isEmpty());
+        mask.add(1 << 11);
+        assertFalse(mask.isEmpty());
+        mask.add(1);
+        mask.remove(1);
+        assertFalse(mask.isEmpty());
+        mask.remove(1 << 11);
+        assertTrue(mask.isEmpty());
+    }
 
+    @Test
+    public void testBitmapMaskCardinality() {
+        assertEquals(3, bitmapMaskStore.of(1, 65, 130).cardinality());
+        assertEquals(1 << 12, bitmapMaskStore.contiguous(1 << 12).cardinality());
+    }
+
+    private static <MaskType extends Mask<MaskType>> void assertRemoveIsIdempotent(MaskStore<MaskType> store) {
+        MaskType mask = store.of(1, 2);
+        mask.remove(1);
+        mask.remove(1);
+        assertEquals(store.of(2), mask);
+        int id = store.newMaskId();
+        store.add(id, 1);
+        store.remove(id, 1);
+        store.remove(id, 1);
+        assertTrue(store.isEmpty(id));
+    }
 }
\ No newline at end of file
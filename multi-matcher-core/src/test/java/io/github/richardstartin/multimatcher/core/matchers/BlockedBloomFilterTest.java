@@ -0,0 +1,58 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.masks.BitsetMask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockedBloomFilterTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 5, 100, 10_000, 100_000})
+    public void testNoFalseNegatives(int size) {
+        var values = new ArrayList<String>(size);
+        for (int i = 0; i < size; ++i) {
+            values.add("value" + i);
+        }
+        var filter = BlockedBloomFilter.of(values);
+        for (String value : values) {
+            assertTrue(filter.mightContain(value.hashCode()), value);
+        }
+        int falsePositives = 0;
+        for (int i = size; i < size + 10_000; ++i) {
+            if (filter.mightContain(("value" + i).hashCode())) {
+                ++falsePositives;
+            }
+        }
+        assertTrue(falsePositives < 500, falsePositives + " false positives");
+    }
+
+    @Test
+    public void testFilteredLookup() {
+        MaskStore<BitsetMask> store = BitsetMask.store(64);
+        var masks = new Object2IntOpenHashMap<String>();
+        for (String value : Arrays.asList("a", "b", null)) {
+            int maskId = store.newMaskId();
+            store.add(maskId, masks.size());
+            masks.put(value, maskId);
+        }
+        int wildcard = store.newMaskId();
+        var matcher = new GenericMatcher<>(store, Function.<String>identity(), masks, wildcard,
+                BlockedBloomFilter.of(masks.keySet()));
+        for (var entry : masks.object2IntEntrySet()) {
+            assertEquals(entry.getIntValue(), matcher.lookup(entry.getKey()));
+        }
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(wildcard, matcher.lookup("c" + i));
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Comparator;
 
@@ -94,6 +95,64 @@ public class ComparableMutableNodeTest {
         assertEquals(store.contiguous(2), store.getMask(node.match(11D)));
     }
 
+    @Test
+    public void testBetween() {
+        var node = new ComparableNode<>(store, Comparator.<LocalDate>naturalOrder(), BETWEEN);
+        node.addRange(LocalDate.ofEpochDay(0), false, LocalDate.ofEpochDay(10), true, 0);
+        node.addRange(LocalDate.ofEpochDay(5), true, LocalDate.ofEpochDay(15), false, 1);
+        node.freeze();
+        assertTrue(store.isEmpty(node.match(LocalDate.ofEpochDay(-1))));
+        assertTrue(store.isEmpty(node.match(LocalDate.ofEpochDay(0))));
+        assertEquals(zero, store.getMask(node.match(LocalDate.ofEpochDay(1))));
+        assertEquals(zeroOrOne, store.getMask(node.match(LocalDate.ofEpochDay(5))));
+        assertEquals(zeroOrOne, store.getMask(node.match(LocalDate.ofEpochDay(10))));
+        assertEquals(one, store.getMask(node.match(LocalDate.ofEpochDay(11))));
+        assertTrue(store.isEmpty(node.match(LocalDate.ofEpochDay(15))));
+    }
+
+    @Test
+    public void testGreaterThanOrEqual() {
+        var node = build(100, GE);
+        assertTrue(store.isEmpty(node.match(LocalDate.ofEpochDay(-1))));
+        assertEquals(zero, store.getMask(node.match(LocalDate.ofEpochDay(0))));
+        assertEquals(zeroOrOne, store.getMask(node.match(LocalDate.ofEpochDay(15))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMerge() {
+        var between = new ComparableNode<>(store, Comparator.<LocalDate>naturalOrder(), BETWEEN);
+        for (int i = 0; i < 20; ++i) {
+            between.addRange(LocalDate.ofEpochDay(i * 10 - 3), i % 2 == 0,
+                    LocalDate.ofEpochDay(i * 10 + 3), i % 3 == 0, i);
+        }
+        ComparableNode<LocalDate, BitsetMask>[] nodes = NodeArrays.of(ComparableNode.class,
+                build(20, GT), build(20, LE), build(20, EQ), between.freeze()
+        );
+        int wildcards = store.newMaskId();
+        store.add(wildcards, 150);
+        var merged = ComparableNode.merge(store, Comparator.naturalOrder(), wildcards, nodes);
+        for (int day = -20; day < 220; ++day) {
+            var value = LocalDate.ofEpochDay(day);
+            var expected = store.getMask(wildcards).clone();
+            for (var node : nodes) {
+                store.orInto(expected, node.match(value));
+            }
+            assertEquals(expected, store.getMask(merged.match(value)), "day " + day);
+        }
+    }
+
+    @Test
+    public void testFrozenNodeUsesComparator() {
+        var node = new ComparableNode<>(store, Comparator.<BigDecimal>naturalOrder(), EQ);
+        node.add(new BigDecimal("1.0"), 0);
+        node.add(new BigDecimal("2.50"), 1);
+        node.freeze();
+        assertEquals(zero, store.getMask(node.match(new BigDecimal("1.00"))));
+        assertEquals(one, store.getMask(node.match(new BigDecimal("2.5"))));
+        assertTrue(store.isEmpty(node.match(new BigDecimal("2.51"))));
+    }
+
     private ComparableNode<LocalDate, BitsetMask> build(int count, Operation operation) {
         var node = new ComparableNode<>(store, Comparator.<LocalDate>naturalOrder(), operation);
         for (int i = 0; i < count; ++i) {
@@ -17,6 +17,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.SplittableRandom;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -161,6 +162,117 @@ public class DoubleMutableNodeTest {
     }
 
 
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testMergeSignedZeroAndInfinity(int maxElement, MaskStore<MaskType> store) {
+        var gt = new DoubleNode<>(store, Operation.GT);
+        gt.add(-0D, 0);
+        gt.add(Double.POSITIVE_INFINITY, 1);
+        var le = new DoubleNode<>(store, Operation.LE);
+        le.add(Double.POSITIVE_INFINITY, 2);
+        DoubleNode<MaskType>[] nodes = NodeArrays.of(DoubleNode.class, gt.optimise(), le.optimise());
+        var merged = DoubleNode.merge(store, 0, nodes);
+        for (double value : new double[]{Double.NEGATIVE_INFINITY, -1D, -0D, 0D, Double.MIN_VALUE,
+                Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN}) {
+            var expected = store.newMask();
+            for (var node : nodes) {
+                store.orInto(expected, node.match(value, 0));
+            }
+            assertEquals(expected, store.getMask(merged.match(value, 0)), "value " + value);
+        }
+    }
+
+    public static Stream<Operation> relations() {
+        return Stream.of(Operation.GT, Operation.GE, Operation.LT, Operation.LE, Operation.EQ);
+    }
+
+    @ParameterizedTest
+    @MethodSource("relations")
+    public void testTotalOrder(Operation relation) {
+        double[] values = {Double.NEGATIVE_INFINITY, -1D, -Double.MIN_VALUE, -0D, 0D, Double.MIN_VALUE, 1D,
+                Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN, Double.longBitsToDouble(0x7ff0000000000001L)};
+        var store = store(64);
+        var node = new DoubleNode<>(store, relation);
+        for (int i = 0; i < values.length - 1; ++i) {
+            node.add(values[i], i);
+        }
+        node.optimise();
+        for (double value : values) {
+            var expected = store.newMask();
+            for (int i = 0; i < values.length - 1; ++i) {
+                // every NaN is the same value, which follows positive infinity
+                int comparison = Double.compare(value, values[i]);
+                boolean satisfied;
+                switch (relation) {
+                    case GT:
+                        satisfied = comparison > 0;
+                        break;
+                    case GE:
+                        satisfied = comparison >= 0;
+                        break;
+                    case LT:
+                        satisfied = comparison < 0;
+                        break;
+                    case LE:
+                        satisfied = comparison <= 0;
+                        break;
+                    default:
+                        satisfied = comparison == 0;
+                }
+                if (satisfied) {
+                    expected.add(i);
+                }
+            }
+            int maskId = node.match(value, 0);
+            if (expected.isEmpty()) {
+                assertTrue(store.isEmpty(maskId), relation + " " + value);
+            } else {
+                assertEquals(expected, store.getMask(maskId), relation + " " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testSuccessorAndPredecessor() {
+        assertEquals(Double.doubleToRawLongBits(0D), Double.doubleToRawLongBits(DoubleNode.successor(-0D)));
+        assertEquals(Double.doubleToRawLongBits(-0D), Double.doubleToRawLongBits(DoubleNode.predecessor(0D)));
+        assertEquals(Double.MIN_VALUE, DoubleNode.successor(0D));
+        assertEquals(-Double.MIN_VALUE, DoubleNode.predecessor(-0D));
+        assertEquals(Math.nextUp(1D), DoubleNode.successor(1D));
+        assertEquals(Math.nextDown(-1D), DoubleNode.predecessor(-1D));
+        assertTrue(Double.isNaN(DoubleNode.successor(Double.POSITIVE_INFINITY)));
+    }
+
+    public static IntStream thresholdCounts() {
+        return IntStream.of(1, 127, 128, 129, 1000, 5000);
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("thresholdCounts")
+    public void testEytzingerSearch(int count) {
+        var store = store(64);
+        var node = new DoubleNode<>(store, Operation.EQ);
+        var random = new SplittableRandom(count);
+        double[] thresholds = random.doubles(count, -1e6, 1e6).toArray();
+        for (int i = 0; i < count; ++i) {
+            node.add(thresholds[i], i % 64);
+        }
+        node.optimise();
+        var merged = DoubleNode.merge(store, 0, NodeArrays.of(DoubleNode.class, node));
+        for (double threshold : thresholds) {
+            for (double value : new double[]{Math.nextDown(threshold), threshold, Math.nextUp(threshold)}) {
+                assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0)));
+            }
+        }
+        for (double value : new double[]{Double.NEGATIVE_INFINITY, -0D, 0D, Double.POSITIVE_INFINITY, Double.NaN}) {
+            assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0)));
+        }
+        random.doubles(1000, -2e6, 2e6).forEach(value ->
+                assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0))));
+    }
+
     private <MaskType extends Mask<MaskType>>
     DoubleNode<MaskType> build(MaskStore<MaskType> store, int count, Operation relation) {
         DoubleNode<MaskType> node = new DoubleNode<>(store, relation);
@@ -15,6 +15,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.SplittableRandom;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -162,6 +163,125 @@ public class IntNodeTest {
     }
 
 
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testBetween(int maxElement, MaskStore<MaskType> store) {
+        var node = new IntNode<>(store, Operation.BETWEEN);
+        for (int i = 0; i < maxElement; ++i) {
+            node.addRange(i * 10, i * 10 + 15, i);
+        }
+        node.addRange(Integer.MIN_VALUE, Integer.MAX_VALUE, maxElement - 1);
+        node.optimise();
+        assertEquals(store.of(maxElement - 1), store.getMask(node.match(-1, 0)));
+        assertEquals(store.of(0, maxElement - 1), store.getMask(node.match(0, 0)));
+        assertEquals(store.of(0, 1, maxElement - 1), store.getMask(node.match(15, 0)));
+        assertEquals(store.of(1, maxElement - 1), store.getMask(node.match(16, 0)));
+        assertEquals(store.of(maxElement - 1), store.getMask(node.match(Integer.MAX_VALUE, 0)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testMerge(int maxElement, MaskStore<MaskType> store) {
+        var between = new IntNode<>(store, Operation.BETWEEN);
+        for (int i = 0; i < maxElement; ++i) {
+            between.addRange(i * 10 - 3, i * 10 + 3, i);
+        }
+        IntNode<MaskType>[] nodes = NodeArrays.of(IntNode.class,
+                build(store, maxElement, GT),
+                buildRev(store, maxElement, LE),
+                build(store, maxElement, EQ),
+                between.optimise()
+        );
+        int wildcards = store.newMaskId();
+        store.add(wildcards, maxElement - 1);
+        var merged = IntNode.merge(store, wildcards, nodes);
+        for (int value = -20; value < maxElement * 10 + 20; ++value) {
+            var expected = store.getMask(wildcards).clone();
+            for (var node : nodes) {
+                store.orInto(expected, node.match(value, 0));
+            }
+            assertEquals(expected, store.getMask(merged.match(value, 0)), "value " + value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testDenseLookup(int maxElement, MaskStore<MaskType> store) {
+        var hours = new IntNode<>(store, Operation.BETWEEN);
+        hours.addRange(9, 17, 0);
+        hours.addRange(0, 5, 1);
+        IntNode<MaskType>[] nodes = NodeArrays.of(IntNode.class,
+                hours.optimise(),
+                build(store, 3, GT),
+                build(store, 3, EQ),
+                buildRev(store, 3, LT)
+        );
+        var merged = IntNode.merge(store, 0, nodes);
+        for (int value : new int[]{Integer.MIN_VALUE, -1, 0, 1, 5, 6, 9, 10, 11, 17, 18, 20, 21, 23, 24, Integer.MAX_VALUE}) {
+            var expected = store.newMask();
+            for (var node : nodes) {
+                store.orInto(expected, node.match(value, 0));
+            }
+            assertEquals(expected, store.getMask(merged.match(value, 0)), "value " + value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testMergeSparseNarrowThresholds(int maxElement, MaskStore<MaskType> store) {
+        // within the widest span of a table, but too few segments to be worth one
+        var range = new IntNode<>(store, Operation.BETWEEN);
+        range.addRange(0, 4000, 0);
+        var point = new IntNode<>(store, Operation.EQ);
+        point.add(2000, 1);
+        IntNode<MaskType>[] nodes = NodeArrays.of(IntNode.class, range.optimise(), point.optimise());
+        var merged = IntNode.merge(store, 0, nodes);
+        for (int value : new int[]{Integer.MIN_VALUE, -1, 0, 1, 1999, 2000, 2001, 3999, 4000, 4001, Integer.MAX_VALUE}) {
+            var expected = store.newMask();
+            for (var node : nodes) {
+                store.orInto(expected, node.match(value, 0));
+            }
+            int maskId = merged.match(value, 0);
+            if (expected.isEmpty()) {
+                assertTrue(store.isEmpty(maskId), "value " + value);
+            } else {
+                assertEquals(expected, store.getMask(maskId), "value " + value);
+            }
+        }
+    }
+
+    public static IntStream thresholdCounts() {
+        return IntStream.of(1, 127, 128, 129, 1000, 5000);
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("thresholdCounts")
+    public void testEytzingerSearch(int count) {
+        var store = store(64);
+        var node = new IntNode<>(store, Operation.EQ);
+        var random = new SplittableRandom(count);
+        int[] thresholds = random.ints(count).toArray();
+        for (int i = 0; i < count; ++i) {
+            node.add(thresholds[i], i % 64);
+        }
+        node.optimise();
+        var merged = IntNode.merge(store, 0, NodeArrays.of(IntNode.class, node));
+        for (int threshold : thresholds) {
+            for (int value : new int[]{threshold - 1, threshold, threshold + 1}) {
+                assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0)));
+            }
+        }
+        for (int value : new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0)));
+        }
+        random.ints(1000).forEach(value ->
+                assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0))));
+    }
+
     private <MaskType extends Mask<MaskType>>
     IntNode<MaskType> build(MaskStore<MaskType> store, int count, Operation relation) {
         var node = new IntNode<>(store, relation);
@@ -13,6 +13,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.SplittableRandom;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -157,6 +158,115 @@ public class LongMutableNodeTest {
     }
 
 
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testDenseLookupOfEpochNanos(int maxElement, MaskStore<MaskType> store) {
+        // nanoseconds apart, so the thresholds fit in a table despite not fitting in an int
+        long start = 1_700_000_000_000_000_000L;
+        var window = new LongNode<>(store, Operation.BETWEEN);
+        window.addRange(start + 10, start + 20, 0);
+        window.addRange(start, start + 5, 1);
+        var after = new LongNode<>(store, Operation.GT);
+        after.add(start + 30, 2);
+        var exactly = new LongNode<>(store, Operation.EQ);
+        exactly.add(start + 15, 3);
+        LongNode<MaskType>[] nodes = NodeArrays.of(LongNode.class, window.optimise(), after.optimise(), exactly.optimise());
+        var merged = LongNode.merge(store, 0, nodes);
+        for (long value : new long[]{Long.MIN_VALUE, -start, start - 1, start, start + 5, start + 6, start + 10,
+                start + 15, start + 20, start + 21, start + 30, start + 31, Long.MAX_VALUE}) {
+            var expected = store.newMask();
+            for (var node : nodes) {
+                store.orInto(expected, node.match(value, 0));
+            }
+            int maskId = merged.match(value, 0);
+            if (expected.isEmpty()) {
+                assertTrue(store.isEmpty(maskId), "value " + value);
+            } else {
+                assertEquals(expected, store.getMask(maskId), "value " + value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testMergeSparseEpochNanos(int maxElement, MaskStore<MaskType> store) {
+        // within the widest span of a table, but too few segments to be worth one
+        long start = 1_700_000_000_000_000_000L;
+        var window = new LongNode<>(store, Operation.BETWEEN);
+        window.addRange(start, start + 4000, 0);
+        LongNode<MaskType>[] nodes = NodeArrays.of(LongNode.class, window.optimise());
+        var merged = LongNode.merge(store, 0, nodes);
+        for (long value : new long[]{Long.MIN_VALUE, start - 1, start, start + 2000, start + 4000, start + 4001, Long.MAX_VALUE}) {
+            var expected = store.newMask();
+            store.orInto(expected, window.match(value, 0));
+            int maskId = merged.match(value, 0);
+            if (expected.isEmpty()) {
+                assertTrue(store.isEmpty(maskId), "value " + value);
+            } else {
+                assertEquals(expected, store.getMask(maskId), "value " + value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("stores")
+    public <MaskType extends Mask<MaskType>> void testMergeThresholdsSpanningSign(int maxElement, MaskStore<MaskType> store) {
+        // the signed difference between the thresholds overflows to a small positive number
+        var low = new LongNode<>(store, Operation.GE);
+        low.add(Long.MIN_VALUE + 2, 0);
+        var high = new LongNode<>(store, Operation.LE);
+        high.add(Long.MAX_VALUE - 2, 1);
+        var point = new LongNode<>(store, Operation.EQ);
+        point.add(0, 2);
+        LongNode<MaskType>[] nodes = NodeArrays.of(LongNode.class, low.optimise(), high.optimise(), point.optimise());
+        var merged = LongNode.merge(store, 0, nodes);
+        for (long value : new long[]{Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MIN_VALUE + 2, -1, 0, 1,
+                Long.MAX_VALUE - 2, Long.MAX_VALUE - 1, Long.MAX_VALUE}) {
+            var expected = store.newMask();
+            for (var node : nodes) {
+                store.orInto(expected, node.match(value, 0));
+            }
+            int maskId = merged.match(value, 0);
+            if (expected.isEmpty()) {
+                assertTrue(store.isEmpty(maskId), "value " + value);
+            } else {
+                assertEquals(expected, store.getMask(maskId), "value " + value);
+            }
+        }
+    }
+
+    public static IntStream thresholdCounts() {
+        return IntStream.of(1, 127, 128, 129, 1000, 5000);
+    }
+
+    @SuppressWarnings("unchecked")
+    @ParameterizedTest
+    @MethodSource("thresholdCounts")
+    public void testEytzingerSearch(int count) {
+        var store = store(64);
+        var node = new LongNode<>(store, Operation.EQ);
+        var random = new SplittableRandom(count);
+        long[] thresholds = random.longs(count).toArray();
+        for (int i = 0; i < count; ++i) {
+            node.add(thresholds[i], i % 64);
+        }
+        node.optimise();
+        var merged = LongNode.merge(store, 0, NodeArrays.of(LongNode.class, node));
+        for (long threshold : thresholds) {
+            for (long value : new long[]{threshold - 1, threshold, threshold + 1}) {
+                assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0)));
+            }
+        }
+        for (long value : new long[]{Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0)));
+        }
+        random.longs(1000).forEach(value ->
+                assertEquals(store.getMask(node.match(value, 0)), store.getMask(merged.match(value, 0))));
+    }
+
     private <MaskType extends Mask<MaskType>>
     LongNode<MaskType> build(MaskStore<MaskType> store, int count, Operation relation) {
         var node = new LongNode<>(store, relation);
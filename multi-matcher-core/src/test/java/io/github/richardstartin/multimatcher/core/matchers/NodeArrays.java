@@ -0,0 +1,28 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import static io.github.richardstartin.multimatcher.core.Utils.newArray;
+
+final class NodeArrays {
+
+    private NodeArrays() {
+    }
+
+    /**
+     * Copies nodes into an array of their generic type, which can't be
+     * created directly.
+     *
+     * @param type  the class of the nodes
+     * @param nodes the nodes
+     * @param <N>   the type of the nodes
+     * @return an array containing the nodes
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    static <N> N[] of(Class<?> type, N... nodes) {
+        var array = (N[]) newArray(type, nodes.length);
+        for (int i = 0; i < nodes.length; ++i) {
+            array[i] = nodes[i];
+        }
+        return array;
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.masks.BitsetMask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class PerfectHashMatcherTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 100, 10_000, 100_000})
+    public void testLookup(int size) {
+        assertLookups(size, i -> "value" + i);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1 << 16, 1 << 18})
+    public void testLookupRandomUUIDs(int size) {
+        var random = new SplittableRandom(size);
+        assertLookups(size, i -> new UUID(random.nextLong(), random.nextLong()).toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1 << 16, 1 << 18})
+    public void testLookupRandomStrings(int size) {
+        // short random strings have many pairs of values with equal hash codes
+        var random = new SplittableRandom(size);
+        assertLookups(size, i -> {
+            char[] chars = new char[1 + random.nextInt(6)];
+            for (int j = 0; j < chars.length; ++j) {
+                chars[j] = (char) ('0' + random.nextInt(75));
+            }
+            return new String(chars);
+        });
+    }
+
+    @Test
+    public void testEqualHashCodes() {
+        MaskStore<BitsetMask> store = BitsetMask.store(64);
+        var masks = new Object2IntOpenHashMap<String>();
+        // every string made of 10 of "Aa" or "BB" has the same hash code
+        for (int i = 0; i < 1 << 10; ++i) {
+            var value = new StringBuilder();
+            for (int j = 0; j < 10; ++j) {
+                value.append((i & (1 << j)) == 0 ? "Aa" : "BB");
+            }
+            int maskId = store.newMaskId();
+            store.add(maskId, i % 64);
+            masks.put(value.toString(), maskId);
+        }
+        masks.put("other", store.newMaskId());
+        int wildcard = store.newMaskId();
+        var matcher = PerfectHashMatcher.build(store, Function.identity(), masks, wildcard, null);
+        assertNotNull(matcher);
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        for (var entry : masks.object2IntEntrySet()) {
+            assertEquals(entry.getIntValue(), matcher.lookup(entry.getKey()));
+        }
+        assertEquals(wildcard, matcher.lookup("AaAaAaAaAaAaAaAaAaCC"));
+        assertEquals(wildcard, matcher.lookup("absent"));
+    }
+
+    private static void assertLookups(int size, IntFunction<String> values) {
+        MaskStore<BitsetMask> store = BitsetMask.store(64);
+        var masks = new Object2IntOpenHashMap<String>();
+        for (int i = 0; masks.size() < size; ++i) {
+            int maskId = store.newMaskId();
+            store.add(maskId, i % 64);
+            masks.put(values.apply(i), maskId);
+        }
+        int wildcard = store.newMaskId();
+        var matcher = PerfectHashMatcher.build(store, Function.identity(), masks, wildcard, null);
+        assertNotNull(matcher);
+        for (var entry : masks.object2IntEntrySet()) {
+            assertEquals(entry.getIntValue(), matcher.lookup(entry.getKey()));
+        }
+        int absent = 0;
+        for (int i = 0; absent < 1000; ++i) {
+            String value = "absent" + i;
+            if (!masks.containsKey(value)) {
+                assertEquals(wildcard, matcher.lookup(value));
+                ++absent;
+            }
+        }
+        assertEquals(wildcard, matcher.lookup(null));
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.richardstartin.multimatcher.core.matchers;
+
+import io.github.richardstartin.multimatcher.core.Mask;
+import io.github.richardstartin.multimatcher.core.Operation;
+import io.github.richardstartin.multimatcher.core.masks.BitsetMask;
+import io.github.richardstartin.multimatcher.core.masks.MaskStore;
+import io.github.richardstartin.multimatcher.core.matchers.nodes.IntNode;
+import io.github.richardstartin.multimatcher.core.matchers.nodes.ShortNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShortNodeTest {
+
+    public static Stream<Arguments> domains() {
+        return Stream.of(
+                Arguments.of((int) Short.MIN_VALUE, (int) Short.MAX_VALUE),
+                Arguments.of((int) Character.MIN_VALUE, (int) Character.MAX_VALUE),
+                Arguments.of((int) Byte.MIN_VALUE, (int) Byte.MAX_VALUE),
+                Arguments.of(1000, 1000 + ShortNode.MAX_DOMAIN_SIZE - 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("domains")
+    public void testNarrowMatchesMerged(int minValue, int maxValue) {
+        MaskStore<BitsetMask> store = BitsetMask.store(64);
+        var random = new SplittableRandom(maxValue);
+        var gt = new IntNode<>(store, Operation.GT);
+        var le = new IntNode<>(store, Operation.LE);
+        var eq = new IntNode<>(store, Operation.EQ);
+        var between = new IntNode<>(store, Operation.BETWEEN);
+        for (int i = 0; i < 16; ++i) {
+            // some of the thresholds are outside the domain
+            gt.add(random.nextInt(minValue - 100, maxValue + 100), i);
+            le.add(random.nextInt(minValue - 100, maxValue + 100), 16 + i);
+            eq.add(random.nextInt(minValue, maxValue + 1), 32 + i);
+            int from = random.nextInt(minValue - 100, maxValue + 100);
+            between.addRange(from, from + random.nextInt(1000), 48 + i);
+        }
+        IntNode<BitsetMask>[] nodes = NodeArrays.of(IntNode.class,
+                gt.optimise(), le.optimise(), eq.optimise(), between.optimise());
+        var merged = IntNode.merge(store, 0, nodes);
+        var narrow = ShortNode.narrow(store, merged, minValue, maxValue);
+        assertTrue(narrow.size() <= merged.size());
+        for (int value = minValue; value <= maxValue; ++value) {
+            assertSameMask(store, merged.match(value, 0), narrow.match(value), value);
+        }
+    }
+
+    @Test
+    public void testDomainTooLarge() {
+        MaskStore<BitsetMask> store = BitsetMask.store(64);
+        var node = new IntNode<>(store, Operation.EQ).optimise();
+        var merged = IntNode.merge(store, 0, NodeArrays.of(IntNode.class, node));
+        assertThrows(IllegalArgumentException.class,
+                () -> ShortNode.narrow(store, merged, 0, ShortNode.MAX_DOMAIN_SIZE));
+    }
+
+    private static <MaskType extends Mask<MaskType>>
+    void assertSameMask(MaskStore<MaskType> store, int expected, int actual, int value) {
+        if (store.isEmpty(expected)) {
+            assertTrue(store.isEmpty(actual), "value " + value);
+        } else {
+            assertEquals(store.getMask(expected), store.getMask(actual), "value " + value);
+        }
+    }
+}